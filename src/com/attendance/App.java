@@ -1,14 +1,29 @@
 package com.attendance;
 
+import com.attendance.exception.AttendanceException;
+import com.attendance.server.AttendanceServer;
+import com.attendance.service.AttendanceFormat;
+import com.attendance.service.AttendanceService;
+import com.attendance.service.WriteBehindDataManager;
 import com.attendance.ui.LoginFrame;
 
 import javax.swing.*;
+import java.io.IOException;
 
 /**
- * Application entry point.
+ * Application entry point. With {@code --server [port]} it runs the headless
+ * HTTP API instead of the desktop UI. The attendance file format is chosen
+ * with {@code -Dattendance.format} (see {@link AttendanceFormat}).
  */
 public class App {
+    private static final int DEFAULT_PORT = 8080;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+            return;
+        }
+
         // Set Look and Feel
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -18,4 +33,31 @@ public class App {
         // Launch on EDT
         SwingUtilities.invokeLater(() -> new LoginFrame().setVisible(true));
     }
+
+    private static void runServer(int port) {
+        // Process-wide HTTP server tuning; must precede the first server
+        AttendanceServer.configureJdkHttpServer();
+        try {
+            AttendanceFormat format = AttendanceFormat.fromSystemProperty();
+            WriteBehindDataManager dataManager = new WriteBehindDataManager(format.open());
+            AttendanceService service = new AttendanceService(dataManager, format.historyFrom());
+            AttendanceServer server = new AttendanceServer(service, port);
+
+            // Flush queued saves when the process is stopped
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                service.close();
+                try {
+                    dataManager.close();
+                } catch (AttendanceException e) {
+                    System.err.println("Failed to save: " + e.getMessage());
+                }
+            }));
+            server.start();
+            System.out.println("Attendance server listening on http://localhost:" + server.port());
+        } catch (AttendanceException | IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package com.attendance;
+
+import com.attendance.service.ColumnarDataManager;
+import com.attendance.service.SerializedDataManager;
+
+/**
+ * One-shot converter from the serialized attendance.dat to the columnar
+ * attendance.col file read by {@link ColumnarDataManager}.
+ */
+public class ColumnarConverter {
+    public static void main(String[] args) {
+        try {
+            SerializedDataManager legacy = new SerializedDataManager();
+            ColumnarDataManager columnar = new ColumnarDataManager(legacy);
+
+            System.out.println("Converting attendance.dat...");
+            int count = columnar.importFrom(legacy);
+            System.out.println("Converted " + count + " records to attendance.col");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
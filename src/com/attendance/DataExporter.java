@@ -0,0 +1,50 @@
+package com.attendance;
+
+import com.attendance.service.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Headless export of attendance records or the attendance report from the
+ * storage selected with {@code -Dattendance.format} (see
+ * {@link AttendanceFormat}). History is loaded from --from on, or in full.
+ * Usage: DataExporter attendance|report &lt;file.csv|file.json&gt;
+ * [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--subject CODE]
+ */
+public class DataExporter {
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[0].equals("attendance") || args[0].equals("report"))) {
+            System.out.println("Usage: DataExporter attendance|report <file.csv|file.json>"
+                    + " [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--subject CODE]");
+            return;
+        }
+        try {
+            LocalDate from = null;
+            LocalDate to = null;
+            String subject = null;
+            for (int i = 2; i + 1 < args.length; i += 2) {
+                switch (args[i]) {
+                    case "--from" -> from = LocalDate.parse(args[i + 1]);
+                    case "--to" -> to = LocalDate.parse(args[i + 1]);
+                    case "--subject" -> subject = args[i + 1];
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+
+            System.out.println("Initializing Service...");
+            AttendanceService service = new AttendanceService(AttendanceFormat.fromSystemProperty().open(), from);
+            AttendanceExporter exporter = new AttendanceExporter(service);
+            Path file = Path.of(args[1]);
+            AttendanceExporter.Format format = AttendanceExporter.Format.forFileName(file.toString());
+            AttendanceExporter.Filter filter = new AttendanceExporter.Filter(from, to, subject);
+
+            long rows = args[0].equals("attendance")
+                    ? exporter.exportAttendance(file, format, filter)
+                    : exporter.exportReport(file, format, filter);
+            System.out.println("Exported " + rows + " rows to " + file);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.attendance;
+
+import com.attendance.service.*;
+
+import java.io.BufferedReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Headless bulk import of a CSV file into the storage selected with
+ * {@code -Dattendance.format} (see {@link AttendanceFormat}), as the app uses.
+ * Usage: DataImporter students|subjects|timetable|attendance &lt;file.csv&gt;
+ * [rejected.csv]
+ */
+public class DataImporter {
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: DataImporter students|subjects|timetable|attendance <file.csv> [rejected.csv]");
+            return;
+        }
+        try {
+            BulkImporter.Kind kind = BulkImporter.Kind.valueOf(args[0].toUpperCase(Locale.ROOT));
+
+            System.out.println("Initializing Service...");
+            AttendanceFormat format = AttendanceFormat.fromSystemProperty();
+            AttendanceService service = new AttendanceService(format.open(), format.historyFrom());
+            BulkImporter importer = new BulkImporter(service);
+
+            long start = System.nanoTime();
+            BulkImporter.ImportResult result;
+            try (BufferedReader in = Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8)) {
+                result = importer.importCsv(kind, in);
+            }
+            System.out.printf("Imported %d rows, rejected %d, in %d ms%n", result.imported(),
+                    result.rejected().size(), (System.nanoTime() - start) / 1_000_000);
+
+            if (result.hasRejections()) {
+                if (args.length > 2) {
+                    try (Writer out = Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)) {
+                        result.writeRejected(out);
+                    }
+                    System.out.println("Rejected rows written to " + args[2]);
+                } else {
+                    result.rejected().stream().limit(20).forEach(r ->
+                            System.out.println("Line " + r.line() + ": " + r.reason()));
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.attendance;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.model.TimetableEntry;
+import com.attendance.service.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Multi-threaded marking throughput. Each thread marks random students
+ * either in sessions of its own (independent classes) or all in one shared
+ * session (conflicting corrections). Marks are journaled to a temporary
+ * directory, so every mark pays for a real append.
+ * Usage: MarkingBenchmark [maxThreads] [marksPerThread]
+ */
+public class MarkingBenchmark {
+    private static final int STUDENTS = 500;
+    private static final int SLOTS = 6;
+    private static final LocalDate FIRST_MONDAY = LocalDate.of(2026, 1, 5);
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int marksPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        try {
+            Path dir = Files.createTempDirectory("marking-benchmark");
+            System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+            run(dir, 1, marksPerThread, false); // warm-up
+
+            System.out.printf("%-12s %8s %12s %8s%n", "sessions", "threads", "marks/s", "speedup");
+            for (boolean shared : new boolean[] { false, true }) {
+                double baseline = 0;
+                for (int threads : threadCounts(maxThreads)) {
+                    double rate = run(dir, threads, marksPerThread, shared);
+                    if (threads == 1) {
+                        baseline = rate;
+                    }
+                    System.out.printf("%-12s %8d %12.0f %7.2fx%n", shared ? "shared" : "independent", threads,
+                            rate, rate / baseline);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 1, 2, 4, ... up to and including max.
+     */
+    private static List<Integer> threadCounts(int max) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < max; t *= 2) {
+            counts.add(t);
+        }
+        counts.add(max);
+        return counts;
+    }
+
+    /**
+     * @return marks per second over all threads
+     */
+    private static double run(Path dir, int threads, int marksPerThread, boolean shared) throws Exception {
+        Path journal = Files.createTempFile(dir, "marks", ".journal");
+        Files.delete(journal);
+        // Compaction off: this measures the marking path, not periodic rewrites
+        AttendanceService service = newService(
+                new JournaledDataManager(new InMemoryDataManager(), journal.toString(), Integer.MAX_VALUE));
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // Independent threads mark a week of their own, so their sessions never overlap
+            LocalDate monday = shared ? FIRST_MONDAY : FIRST_MONDAY.plusWeeks(t);
+            Random random = new Random(t);
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < marksPerThread; i++) {
+                        int slot = shared ? 1 : 1 + random.nextInt(SLOTS);
+                        service.markAttendance("S" + random.nextInt(STUDENTS), "C" + slot, monday, slot,
+                                random.nextBoolean());
+                    }
+                } catch (Exception e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        Files.deleteIfExists(journal);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Benchmark thread failed", errors.get(0));
+        }
+        return threads * (double) marksPerThread * 1e9 / elapsed;
+    }
+
+    private static AttendanceService newService(DataManager dm) throws AttendanceException {
+        AttendanceService service = new AttendanceService(dm);
+        for (int i = 0; i < STUDENTS; i++) {
+            service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+        }
+        for (int slot = 1; slot <= SLOTS; slot++) {
+            service.addSubject(new Subject("C" + slot, "Course " + slot));
+            service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, slot, "C" + slot));
+        }
+        return service;
+    }
+}
@@ -0,0 +1,173 @@
+package com.attendance;
+
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.model.TimetableEntry;
+import com.attendance.server.AttendanceServer;
+import com.attendance.server.Json;
+import com.attendance.service.AttendanceService;
+import com.attendance.service.InMemoryDataManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load-test client for the HTTP API. Keeps up to the given number of
+ * requests in flight, mostly single marks with some lookups and reports,
+ * and prints throughput and latency percentiles. Without --url it starts
+ * an in-memory server with seeded students and timetable on a free port.
+ * Usage: ServerLoadTest [--url http://host:port] [--requests N] [--concurrency C]
+ */
+public class ServerLoadTest {
+    private static final int SEED_STUDENTS = 500;
+    private static final int SEED_SLOTS = 6;
+    private static final LocalDate FIRST_MONDAY = LocalDate.of(2026, 1, 5);
+
+    public static void main(String[] args) {
+        String url = null;
+        int requests = 20_000;
+        int concurrency = 1000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        AttendanceServer embedded = null;
+        try {
+            if (url == null) {
+                AttendanceServer.configureJdkHttpServer();
+                embedded = new AttendanceServer(seededService(), 0);
+                embedded.start();
+                url = "http://localhost:" + embedded.port();
+                System.out.println("Started in-memory server on " + url);
+            }
+            run(url, requests, concurrency);
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static void run(String url, int requests, int concurrency) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<?> students = (List<?>) Json.parse(get(client, url + "/students"));
+        List<?> timetable = (List<?>) Json.parse(get(client, url + "/timetable"));
+        if (students.isEmpty() || timetable.isEmpty()) {
+            throw new IllegalStateException("The server needs students and a timetable to mark against");
+        }
+
+        Random random = new Random(42);
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        System.out.printf("Sending %d requests with up to %d in flight...%n", requests, concurrency);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = nextRequest(url, random, students, timetable);
+            int index = i;
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - sent;
+                if (error != null) {
+                    if (failures.incrementAndGet() == 1) {
+                        System.err.println("First failure: " + error);
+                    }
+                } else if (response.statusCode() >= 300) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests in %d ms: %.0f req/s%n", requests, elapsed / 1_000_000,
+                requests * 1e9 / elapsed);
+        System.out.printf("latency p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                latencies[requests - 1] / 1e6);
+        System.out.printf("non-2xx responses: %d, connection failures: %d%n", errors.get(), failures.get());
+    }
+
+    /**
+     * 90% single marks for a scheduled session, 5% student lookups and 5%
+     * percentage reports.
+     */
+    private static HttpRequest nextRequest(String url, Random random, List<?> students, List<?> timetable) {
+        Map<?, ?> student = (Map<?, ?>) students.get(random.nextInt(students.size()));
+        String studentId = (String) student.get("id");
+        int kind = random.nextInt(20);
+        if (kind == 0) {
+            return HttpRequest.newBuilder(URI.create(url + "/students/" + studentId)).GET().build();
+        }
+        if (kind == 1) {
+            return HttpRequest.newBuilder(URI.create(url + "/reports/percentages/" + studentId)).GET().build();
+        }
+        Map<?, ?> entry = (Map<?, ?>) timetable.get(random.nextInt(timetable.size()));
+        LocalDate date = FIRST_MONDAY.plusWeeks(random.nextInt(10))
+                .plusDays(DayOfWeek.valueOf((String) entry.get("day")).getValue() - 1);
+        String body = Json.write(Map.of(
+                "studentId", studentId,
+                "subjectCode", entry.get("subjectCode"),
+                "date", date.toString(),
+                "slot", entry.get("slot"),
+                "present", random.nextBoolean()));
+        return HttpRequest.newBuilder(URI.create(url + "/attendance/mark"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String get(HttpClient client, String url) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + url + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static AttendanceService seededService() throws Exception {
+        AttendanceService service = new AttendanceService(new InMemoryDataManager());
+        for (int i = 0; i < SEED_STUDENTS; i++) {
+            service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+        }
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)) {
+            for (int slot = 1; slot <= SEED_SLOTS; slot++) {
+                String code = day.toString().substring(0, 3) + slot;
+                service.addSubject(new Subject(code, "Course " + code));
+                service.addTimetableEntry(new TimetableEntry(day, slot, code));
+            }
+        }
+        return service;
+    }
+}
@@ -3,6 +3,53 @@ package com.attendance;
 import com.attendance.model.*;
 import com.attendance.service.*;
 import com.attendance.exception.*;
+import com.attendance.server.AttendanceServer;
+import com.attendance.server.Json;
+import com.attendance.ui.AttendanceHistoryTableModel;
+import com.attendance.ui.EdtAttendanceListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.RandomAccessFile;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableModel;
 
 public class TestDriver {
     public static void main(String[] args) {
@@ -28,8 +75,1383 @@ public class TestDriver {
             }
 
             System.out.println("Validation Tests Complete.");
+
+            System.out.println("Running Attendance Tests...");
+            testJournalReplayAndRecovery();
+            testDefaultIncrementalFallback();
+            testColumnarRoundTrip();
+            testWriteBehindRetriesFailedWrites();
+            testPartitionedMigrationAndRanges();
+            testUpsertMatchesListSemantics();
+            testBatchMarking();
+            testParallelReportMatchesSequential();
+            testReportCacheInvalidation();
+            testExport();
+            testBulkImport();
+            testUnstorableMarksAreRejected();
+            testImportDuringConcurrentWrites();
+            testTrendWindows();
+            testRankingIndex();
+            testConcurrentReadsAndWrites();
+            testSnapshotIsolation(StorageMode.HEAP);
+            testSnapshotIsolation(StorageMode.OFF_HEAP);
+            testOffHeapMarking();
+            testStripedMarkingPersistsInOrder();
+            testHttpServer();
+            testAsyncPersistence();
+            testChangeEvents();
+            testListenersRunOutsideLocks();
+            testHistoryTableModel();
+            System.out.println("Attendance Tests Complete.");
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    private static void testJournalReplayAndRecovery() throws Exception {
+        Path journal = Files.createTempDirectory("journal-test").resolve("attendance.journal");
+        InMemoryDataManager base = new InMemoryDataManager();
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        AttendanceRecord a = new AttendanceRecord("S0", "C1", monday, 1, true);
+        AttendanceRecord b = new AttendanceRecord("S1", "C1", monday, 1, true);
+        AttendanceRecord aCorrected = new AttendanceRecord("S0", "C1", monday, 1, false);
+
+        JournaledDataManager journaled = new JournaledDataManager(base, journal.toString(), 1000);
+        journaled.saveAttendance(List.of(a));
+        journaled.appendAttendance(List.of(b, new AttendanceRecord("S2", "C1", monday, 1, true)));
+        journaled.appendAttendance(List.of(aCorrected));
+        journaled.deleteAttendanceForStudent("S2");
+        List<AttendanceRecord> replayed = new JournaledDataManager(base, journal.toString(), 1000).loadAttendance();
+        check(base.loadAttendance().equals(List.of(a)) && Set.copyOf(replayed).equals(Set.of(aCorrected, b)),
+                "Journal replays upserts, corrections and deletes after a restart");
+
+        journaled.saveAttendance(List.of());
+        for (int day = 0; day < 999; day++) {
+            journaled.appendAttendance(List.of(new AttendanceRecord("S0", "C1", monday.plusDays(day), 1, true)));
+        }
+        boolean heldInJournal = base.loadAttendance().isEmpty() && Files.exists(journal);
+        journaled.appendAttendance(List.of(new AttendanceRecord("S0", "C1", monday.plusDays(999), 1, true)));
+        check(heldInJournal && base.loadAttendance().size() == 1000 && !Files.exists(journal),
+                "Journal is folded into the base file at 1000 entries");
+
+        journaled.saveAttendance(List.of());
+        journaled.appendAttendance(List.of(a));
+        journaled.appendAttendance(List.of(b));
+        try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "rw")) {
+            file.setLength(file.length() - 3); // crash in the middle of the last entry
+        }
+        JournaledDataManager restarted = new JournaledDataManager(base, journal.toString(), 1000);
+        List<AttendanceRecord> recovered = restarted.loadAttendance();
+        boolean folded = base.loadAttendance().equals(List.of(a)) && !Files.exists(journal);
+        restarted.appendAttendance(List.of(b));
+        List<AttendanceRecord> reloaded = new JournaledDataManager(base, journal.toString(), 1000).loadAttendance();
+        check(recovered.equals(List.of(a)) && folded && Set.copyOf(reloaded).equals(Set.of(a, b)),
+                "Torn journal tail is dropped and later appends replay cleanly");
+    }
+
+    private static void testColumnarRoundTrip() throws Exception {
+        Path file = Files.createTempDirectory("columnar-test").resolve("attendance.col");
+        Path tmp = file.resolveSibling("attendance.col.tmp");
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        InMemoryDataManager legacy = new InMemoryDataManager();
+        legacy.saveAttendance(List.of(new AttendanceRecord("S0", "C1", monday, 1, true)));
+        ColumnarDataManager columnar = new ColumnarDataManager(legacy, file.toString());
+        boolean fallsBack = columnar.loadAttendance().equals(legacy.loadAttendance());
+
+        // Enough rows to span several words of the present bitset
+        List<AttendanceRecord> records = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            records.add(new AttendanceRecord("S" + (i % 7), "C" + (i % 3), monday.plusDays(i / 7), 1 + i % 5,
+                    i % 3 != 0));
+        }
+        columnar.saveAttendance(records);
+        List<AttendanceRecord> reloaded = new ColumnarDataManager(legacy, file.toString()).loadAttendance();
+        check(fallsBack && reloaded.equals(records), "Columnar attendance reloads unchanged after a restart");
+
+        boolean rejected = false;
+        try {
+            columnar.saveAttendance(List.of(new AttendanceRecord("S0", "C1", monday, 200, true)));
+        } catch (AttendanceException e) {
+            rejected = true;
+        }
+        check(rejected && !Files.exists(tmp) && columnar.loadAttendance().equals(records),
+                "Failed columnar save keeps the old file and removes its temp file");
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 16));
+        boolean truncatedRejected = false;
+        try {
+            columnar.loadAttendance();
+        } catch (AttendanceException e) {
+            truncatedRejected = true;
+        }
+        Files.write(file, new byte[] { 1, 2, 3 });
+        boolean garbageRejected = false;
+        try {
+            columnar.loadAttendance();
+        } catch (AttendanceException e) {
+            garbageRejected = true;
+        }
+        check(truncatedRejected && garbageRejected, "Corrupt columnar file fails to load with AttendanceException");
+    }
+
+    /**
+     * A delegate whose first append fails: the queued writes must survive
+     * and land on the next flush, and the failure must be reported until
+     * they do.
+     */
+    private static void testWriteBehindRetriesFailedWrites() throws Exception {
+        InMemoryDataManager disk = new InMemoryDataManager();
+        DataManager flaky = failingOnce(disk, "appendAttendance");
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        AttendanceRecord a = new AttendanceRecord("S0", "C1", monday, 1, true);
+        AttendanceRecord b = new AttendanceRecord("S1", "C1", monday, 1, true);
+        AttendanceRecord c = new AttendanceRecord("S2", "C1", monday, 1, false);
+        AttendanceRecord d = new AttendanceRecord("S3", "C1", monday, 1, true);
+
+        // A long window so only explicit flushes write
+        WriteBehindDataManager writeBehind = new WriteBehindDataManager(flaky, 60_000);
+        disk.saveAttendance(List.of(new AttendanceRecord("S9", "C1", monday, 2, true)));
+        writeBehind.saveStudents(List.of(new Student("S0", "Zero", "R0")));
+        writeBehind.appendAttendance(List.of(a));
+        writeBehind.deleteAttendanceForStudent("S9");
+        writeBehind.appendAttendance(List.of(b, c));
+        boolean flushFailed = false;
+        try {
+            writeBehind.flush();
+        } catch (AttendanceException e) {
+            flushFailed = true;
+        }
+        boolean stillReported = false;
+        try {
+            writeBehind.appendAttendance(List.of(d));
+        } catch (AttendanceException e) {
+            stillReported = true;
+        }
+        boolean nothingLost = disk.loadStudents().size() == 1 && disk.loadAttendance().size() == 1;
+        writeBehind.flush();
+        writeBehind.appendAttendance(List.of(a));
+        writeBehind.close();
+        check(flushFailed && stillReported && nothingLost
+                && Set.copyOf(disk.loadAttendance()).equals(Set.of(a, b, c, d)),
+                "Write-behind requeues writes after a failure and recovers on the next flush");
+
+        // An unchecked store error takes the same path instead of dropping the batch
+        InMemoryDataManager store = new InMemoryDataManager();
+        WriteBehindDataManager unchecked = new WriteBehindDataManager(failingOnce(store, "deleteAttendanceForStudent",
+                new UncheckedIOException(new IOException("Device removed"))), 60_000);
+        store.saveAttendance(List.of(new AttendanceRecord("S9", "C1", monday, 2, true)));
+        unchecked.appendAttendance(List.of(a));
+        unchecked.deleteAttendanceForStudent("S9");
+        unchecked.appendAttendance(List.of(b));
+        boolean reported = false;
+        try {
+            unchecked.flush();
+        } catch (AttendanceException e) {
+            reported = e.getMessage().contains("Device removed");
+        }
+        unchecked.close();
+        check(reported && Set.copyOf(store.loadAttendance()).equals(Set.of(a, b)),
+                "Write-behind requeues writes after an unchecked failure");
+    }
+
+    private static void testPartitionedMigrationAndRanges() throws Exception {
+        File directory = Files.createTempDirectory("partition-test").resolve("attendance").toFile();
+        InMemoryDataManager legacy = new InMemoryDataManager();
+        List<AttendanceRecord> history = new ArrayList<>();
+        LocalDate start = LocalDate.of(2025, 11, 3);
+        for (int day = 0; day < 90; day += 3) {
+            history.add(new AttendanceRecord("S" + day % 4, "C1", start.plusDays(day), 1, day % 2 == 0));
+        }
+        legacy.saveAttendance(history);
+
+        PartitionedDataManager partitioned = new PartitionedDataManager(failingOnce(legacy, "loadAttendance"),
+                directory.getPath());
+        boolean firstAttemptFailed = false;
+        try {
+            partitioned.loadAttendance();
+        } catch (AttendanceException e) {
+            firstAttemptFailed = true;
+        }
+        boolean nothingCommitted = !directory.exists();
+        List<AttendanceRecord> migrated = partitioned.loadAttendance();
+        String[] segments = directory.list();
+        check(firstAttemptFailed && nothingCommitted && migrated.equals(history) && segments != null
+                && segments.length == 3 && !new File(directory.getPath() + ".migrating").exists(),
+                "Failed migration is retried and commits all month segments at once");
+
+        LocalDate from = LocalDate.of(2025, 12, 10);
+        LocalDate to = LocalDate.of(2026, 1, 5);
+        AttendanceRecord added = new AttendanceRecord("S9", "C1", LocalDate.of(2025, 12, 20), 2, true);
+        partitioned.appendAttendance(List.of(added));
+        List<AttendanceRecord> expected = new ArrayList<>();
+        for (AttendanceRecord r : history) {
+            if (!r.date().isBefore(from) && !r.date().isAfter(to)) {
+                expected.add(r);
+            }
+        }
+        List<AttendanceRecord> range = new PartitionedDataManager(legacy, directory.getPath())
+                .loadAttendance(from, to);
+        check(range.size() == expected.size() + 1 && range.containsAll(expected) && range.contains(added),
+                "Partitioned range load returns only the requested dates");
+
+        LocalDate windowStart = LocalDate.of(2026, 1, 1);
+        AttendanceService service = new AttendanceService(new PartitionedDataManager(legacy, directory.getPath()),
+                windowStart);
+        boolean windowOnly = service.getAttendanceNewestFirst().stream().allMatch(r -> !r.date().isBefore(windowStart))
+                && service.getHistoryLoadedFrom().equals(Optional.of(windowStart));
+        service.loadHistory(null);
+        check(windowOnly && service.getAttendanceNewestFirst().size() == history.size() + 1
+                && service.getHistoryLoadedFrom().isEmpty(),
+                "Service loads recent partitions first and the rest on demand");
+    }
+
+    /**
+     * A DataManager over the target whose first call to the named method
+     * fails with an AttendanceException.
+     */
+    private static DataManager failingOnce(DataManager target, String methodName) {
+        return failingOnce(target, methodName, new AttendanceException("Disk full"));
+    }
+
+    private static DataManager failingOnce(DataManager target, String methodName, Throwable error) {
+        AtomicInteger calls = new AtomicInteger();
+        return (DataManager) Proxy.newProxyInstance(DataManager.class.getClassLoader(),
+                new Class<?>[] { DataManager.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals(methodName) && calls.getAndIncrement() == 0) {
+                        throw error;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * A manager that implements only the abstract methods still persists
+     * incremental changes, by rewriting the whole history.
+     */
+    private static void testDefaultIncrementalFallback() throws AttendanceException {
+        InMemoryDataManager plain = new InMemoryDataManager();
+        DataManager fullSaveOnly = (DataManager) Proxy.newProxyInstance(DataManager.class.getClassLoader(),
+                new Class<?>[] { DataManager.class },
+                (proxy, method, args) -> method.isDefault()
+                        ? InvocationHandler.invokeDefault(proxy, method, args)
+                        : method.invoke(plain, args));
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        AttendanceRecord a = new AttendanceRecord("S0", "C1", monday, 1, true);
+        AttendanceRecord b = new AttendanceRecord("S1", "C1", monday, 1, true);
+        AttendanceRecord aCorrected = new AttendanceRecord("S0", "C1", monday, 1, false);
+        AttendanceRecord c = new AttendanceRecord("S2", "C1", monday, 1, true);
+
+        fullSaveOnly.saveAttendance(List.of(a, b));
+        fullSaveOnly.appendAttendance(List.of(aCorrected, c));
+        fullSaveOnly.deleteAttendanceForStudent("S1");
+        check(!fullSaveOnly.supportsIncrementalAttendance()
+                && Set.copyOf(plain.loadAttendance()).equals(Set.of(aCorrected, c)),
+                "Default append and delete rewrite the full history");
+    }
+
+    /**
+     * Replays random marks, corrections and student removals against the
+     * service and against the original list semantics (removeIf + add), then
+     * compares the resulting records.
+     */
+    private static void testUpsertMatchesListSemantics() throws AttendanceException {
+        AttendanceService service = newInMemoryService(20, 3);
+        List<AttendanceRecord> expected = new ArrayList<>();
+        Random random = new Random(42);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+
+        for (int i = 0; i < 5000; i++) {
+            String studentId = "S" + random.nextInt(20);
+            if (random.nextInt(500) == 0 && service.getAllStudents().stream().anyMatch(s -> s.id().equals(studentId))) {
+                service.removeStudent(studentId);
+                expected.removeIf(r -> r.studentId().equals(studentId));
+                continue;
+            }
+            if (service.getAllStudents().stream().noneMatch(s -> s.id().equals(studentId))) {
+                continue;
+            }
+            LocalDate date = monday.plusWeeks(random.nextInt(4));
+            int slot = 1 + random.nextInt(3);
+            boolean present = random.nextBoolean();
+            service.markAttendance(studentId, "C" + slot, date, slot, present);
+            expected.removeIf(r -> r.studentId().equals(studentId) && r.date().equals(date)
+                    && r.slotNumber() == slot);
+            expected.add(new AttendanceRecord(studentId, "C" + slot, date, slot, present));
+        }
+
+        check(service.getAllAttendance().size() == expected.size(), "Upsert keeps one record per key");
+        check(new HashSet<>(service.getAllAttendance()).equals(new HashSet<>(expected)),
+                "Upsert matches list semantics");
+
+        boolean countersMatch = true;
+        for (Student st : service.getAllStudents()) {
+            countersMatch &= service.getAttendancePercentage(st.id()) == percentage(expected, st.id(), null);
+            for (int slot = 1; slot <= 3; slot++) {
+                countersMatch &= service.getAttendancePercentageBySubject(st.id(), "C" + slot)
+                        == percentage(expected, st.id(), "C" + slot);
+            }
+        }
+        check(countersMatch, "Incremental counters match a full scan");
+
+        SubjectAttendanceMatrix matrix = service.getSubjectAttendanceMatrix();
+        boolean matrixMatches = true;
+        for (int row = 0; row < matrix.studentCount(); row++) {
+            for (int col = 0; col < matrix.subjectCount(); col++) {
+                matrixMatches &= matrix.percentage(row, col) == percentage(expected,
+                        matrix.student(row).id(), matrix.subject(col).code());
+            }
+        }
+        check(matrixMatches, "Subject-wise matrix matches a full scan");
+
+        LocalDate from = monday.plusWeeks(1);
+        LocalDate to = monday.plusWeeks(2);
+        List<AttendanceRecord> inRange = service.getAttendanceBetween(from, to);
+        check(new HashSet<>(inRange).equals(expected.stream()
+                        .filter(r -> !r.date().isBefore(from) && !r.date().isAfter(to))
+                        .collect(Collectors.toSet())),
+                "Date range query matches a full scan");
+        check(isSortedByDate(inRange), "Date range query is in date order");
+        List<AttendanceRecord> newestFirst = new ArrayList<>(service.getAttendanceNewestFirst());
+        Collections.reverse(newestFirst);
+        check(isSortedByDate(newestFirst) && newestFirst.size() == expected.size(),
+                "Newest-first iteration covers every record");
+        check(new HashSet<>(service.getAttendanceByStudentBetween("S3", from, null)).equals(expected.stream()
+                        .filter(r -> r.studentId().equals("S3") && !r.date().isBefore(from))
+                        .collect(Collectors.toSet())),
+                "Per-student date range matches a full scan");
+    }
+
+    private static boolean isSortedByDate(List<AttendanceRecord> records) {
+        for (int i = 1; i < records.size(); i++) {
+            if (records.get(i).date().isBefore(records.get(i - 1).date())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reference percentage computed by scanning, as the service originally did.
+     */
+    private static double percentage(List<AttendanceRecord> records, String studentId, String subjectCode) {
+        List<AttendanceRecord> matching = records.stream()
+                .filter(r -> r.studentId().equals(studentId)
+                        && (subjectCode == null || r.subjectCode().equals(subjectCode)))
+                .toList();
+        if (matching.isEmpty())
+            return 0.0;
+        long presentCount = matching.stream().filter(AttendanceRecord::present).count();
+        return (presentCount * 100.0) / matching.size();
+    }
+
+    private static void testBatchMarking() throws AttendanceException {
+        AttendanceService service = newInMemoryService(3, 1);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        Map<String, Boolean> marks = new LinkedHashMap<>();
+        marks.put("S0", true);
+        marks.put("S1", false);
+        marks.put("NOPE", true);
+        marks.put("S2", true);
+
+        BatchMarkResult result = service.markAttendanceBatch("C1", monday, 1, marks);
+        check(result.marked() == 3 && result.failures().keySet().equals(Set.of("NOPE")),
+                "Batch marking reports unknown students without aborting");
+        check(service.getAllAttendance().size() == 3, "Batch marking applies every valid mark");
+
+        try {
+            service.markAttendanceBatch("C2", monday, 1, marks);
+            check(false, "Batch marking rejects an unknown subject");
+        } catch (SubjectNotFoundException e) {
+            check(service.getAllAttendance().size() == 3, "Batch marking rejects an unknown subject");
+        }
+
+        service.addSubject(new Subject("C2", "Course 2"));
+        try {
+            service.markAttendanceBatch("C2", monday, 1, marks);
+            check(false, "Batch marking rejects a timetable mismatch");
+        } catch (ValidationException e) {
+            check(service.getAllAttendance().size() == 3, "Batch marking rejects a timetable mismatch");
+        }
+    }
+
+    private static void testParallelReportMatchesSequential() throws AttendanceException {
+        AttendanceService service = newInMemoryService(50, 4);
+        Random random = new Random(7);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        for (int week = 0; week < 20; week++) {
+            for (int slot = 1; slot <= 4; slot++) {
+                Map<String, Boolean> marks = new LinkedHashMap<>();
+                for (int i = 0; i < 50; i++) {
+                    marks.put("S" + i, random.nextInt(4) != 0);
+                }
+                service.markAttendanceBatch("C" + slot, monday.plusWeeks(week), slot, marks);
+            }
+        }
+
+        service.setReportParallelism(1, 1);
+        SubjectAttendanceMatrix sequential = service.getSubjectAttendanceMatrix();
+        service.setReportParallelism(4, 64);
+        SubjectAttendanceMatrix parallel = service.getSubjectAttendanceMatrix();
+        boolean same = sequential.studentCount() == parallel.studentCount()
+                && sequential.subjectCount() == parallel.subjectCount();
+        for (int row = 0; same && row < sequential.studentCount(); row++) {
+            for (int col = 0; col < sequential.subjectCount(); col++) {
+                same &= sequential.present(row, col) == parallel.present(row, col)
+                        && sequential.total(row, col) == parallel.total(row, col);
+            }
+        }
+        check(same, "Parallel report matches sequential report");
+
+        service.close();
+        SubjectAttendanceMatrix closed = service.getSubjectAttendanceMatrix();
+        check(closed.studentCount() == sequential.studentCount() && closed.total(0, 0) == sequential.total(0, 0),
+                "Reports still run after the service releases its pool");
+    }
+
+    private static void testReportCacheInvalidation() throws AttendanceException {
+        AttendanceService service = newInMemoryService(3, 1);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        service.markAttendance("S0", "C1", monday, 1, true);
+        service.markAttendance("S1", "C1", monday, 1, false);
+
+        AttendanceReport report = service.getReport();
+        check(service.getReport() == report, "Unchanged data reuses the cached report");
+        check(service.getStudentsBelowAttendance(50.0).stream().map(Student::id).toList()
+                        .equals(List.of("S1", "S2")),
+                "Low attendance is served from the report");
+
+        service.markAttendance("S1", "C1", monday, 1, true);
+        AttendanceReport updated = service.getReport();
+        check(updated != report && updated.version() > report.version()
+                        && updated.overallPercentage(1) == 100.0 && updated.matrix().present(1, 0) == 1,
+                "A write invalidates the cached report");
+        service.removeStudent("S2");
+        check(service.getReport().studentCount() == 2, "Removing a student invalidates the cached report");
+    }
+
+    private static void testExport() throws AttendanceException {
+        AttendanceService service = newInMemoryService(2, 2);
+        service.addStudent(new Student("S9", "Doe, \"Jo\"", "R9"));
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        service.markAttendance("S0", "C1", monday, 1, true);
+        service.markAttendance("S9", "C2", monday, 2, false);
+        service.markAttendance("S1", "C1", monday.plusWeeks(1), 1, false);
+        AttendanceExporter exporter = new AttendanceExporter(service);
+
+        StringWriter csv = new StringWriter();
+        long rows = exporter.exportAttendance(csv, AttendanceExporter.Format.CSV, AttendanceExporter.Filter.ALL);
+        check(rows == 3 && csv.toString().equals("student_id,subject_code,date,slot,present\n"
+                        + "S0,C1,2026-01-05,1,true\nS9,C2,2026-01-05,2,false\nS1,C1,2026-01-12,1,false\n"),
+                "CSV export streams every record in date order");
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        exporter.exportAttendance(json, AttendanceExporter.Format.JSON,
+                new AttendanceExporter.Filter(null, monday, "C1"));
+        check(json.toString(StandardCharsets.UTF_8).equals("[\n{\"studentId\":\"S0\",\"subjectCode\":\"C1\","
+                        + "\"date\":\"2026-01-05\",\"slot\":1,\"present\":true}\n]\n"),
+                "JSON export applies date and subject filters");
+
+        StringWriter report = new StringWriter();
+        exporter.exportReport(report, AttendanceExporter.Format.CSV, AttendanceExporter.Filter.ALL);
+        check(report.toString().equals("student_id,name,roll_no,overall_pct,C1,C2\n"
+                        + "S0,Student 0,R0,100.0,100.0,0.0\nS1,Student 1,R1,0.0,0.0,0.0\n"
+                        + "S9,\"Doe, \"\"Jo\"\"\",R9,0.0,0.0,0.0\n"),
+                "Report export quotes CSV fields");
+
+        service.markAttendance("S0", "C2", monday, 2, false);
+        service.removeSubject("C2");
+        StringWriter all = new StringWriter();
+        exporter.exportReport(all, AttendanceExporter.Format.CSV, AttendanceExporter.Filter.ALL);
+        StringWriter dated = new StringWriter();
+        exporter.exportReport(dated, AttendanceExporter.Format.CSV, new AttendanceExporter.Filter(monday, monday,
+                null));
+        check(all.toString().contains("S0,Student 0,R0,50.0,100.0\n") && dated.toString().equals(all.toString()),
+                "Date-filtered report export counts overall % like the full report");
+    }
+
+    private static void testBulkImport() throws AttendanceException {
+        AttendanceService service = newInMemoryService(0, 0);
+        BulkImporter importer = new BulkImporter(service);
+
+        BulkImporter.ImportResult students = importer.importStudents(new StringReader(
+                "student_id,name,roll_no\nS1,Ann,R1\nS2,\"Lee, \"\"B\"\"\",R2\nS-3,Bad Id,R3\nS4,Dup Roll,R1\nS5,Short\n"));
+        check(students.imported() == 2 && service.getAllStudents().get(1).name().equals("Lee, \"B\"")
+                        && students.rejected().stream().map(BulkImporter.RejectedRow::line).toList()
+                                .equals(List.of(4L, 5L, 6L)),
+                "Student import applies validation and duplicate rules per row");
+
+        importer.importSubjects(new StringReader("C1,Course 1\nC2,Course 2\n"));
+        BulkImporter.ImportResult timetable = importer.importTimetable(new StringReader(
+                "day,slot,subject_code\nmonday,1,C1\nMONDAY,2,C2\nFUNDAY,1,C1\nMONDAY,1,C2\nTUESDAY,1,XX\n"));
+        check(timetable.imported() == 2 && timetable.rejected().size() == 3,
+                "Timetable import rejects bad days, conflicts and unknown subjects");
+
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        service.markAttendance("S1", "C1", monday, 1, false);
+        StringWriter exported = new StringWriter();
+        new AttendanceExporter(service).exportAttendance(exported, AttendanceExporter.Format.CSV,
+                AttendanceExporter.Filter.ALL);
+        BulkImporter.ImportResult marks = importer.importAttendance(new StringReader(exported
+                + "S1,C1,2026-01-05,1,true\nS2,C1,2026-01-05,1,false\nS2,C1,2026-01-05,1,true\n"
+                + "S2,C1,2026-01-05,2,true\nS9,C1,2026-01-05,1,true\nS1,C1,2026-01-05,1,maybe\n"));
+        check(marks.imported() == 4 && marks.rejected().size() == 3 && service.getAllAttendance().size() == 2
+                        && service.getAttendancePercentage("S1") == 100.0
+                        && service.getAttendancePercentage("S2") == 100.0,
+                "Attendance import round-trips the export and keeps the last mark per key");
+    }
+
+    /**
+     * A user mark and a student removal land after the import has validated
+     * its rows but before it applies them; storage must replay to exactly
+     * what memory shows.
+     */
+    private static void testImportDuringConcurrentWrites() throws Exception {
+        Path journal = Files.createTempDirectory("import-test").resolve("attendance.journal");
+        InMemoryDataManager base = new InMemoryDataManager();
+        AttendanceService service = new AttendanceService(new JournaledDataManager(base, journal.toString(), 1000));
+        for (int i = 0; i < 3; i++) {
+            service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+        }
+        service.addSubject(new Subject("C1", "Course 1"));
+        service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, 1, "C1"));
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+
+        StringReader csv = new StringReader("S0,C1,2026-01-05,1,false\nS1,C1,2026-01-05,1,true\n"
+                + "S2,C1,2026-01-12,1,true\n");
+        AtomicBoolean interleaved = new AtomicBoolean();
+        Reader reader = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int n = csv.read(buffer, offset, length);
+                if (n < 0 && interleaved.compareAndSet(false, true)) {
+                    try {
+                        service.markAttendance("S0", "C1", monday, 1, true);
+                        service.removeStudent("S1");
+                    } catch (AttendanceException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        BulkImporter.ImportResult result = new BulkImporter(service).importAttendance(reader);
+
+        Set<AttendanceRecord> inMemory = new HashSet<>(service.getAllAttendance());
+        Set<AttendanceRecord> reloaded = new HashSet<>(new AttendanceService(
+                new JournaledDataManager(base, journal.toString(), 1000)).getAllAttendance());
+        check(interleaved.get() && result.imported() == 3 && reloaded.equals(inMemory)
+                        && inMemory.stream().noneMatch(r -> r.studentId().equals("S1"))
+                        && inMemory.contains(new AttendanceRecord("S0", "C1", monday, 1, false)),
+                "Import persists in the same order as concurrent marks and removals");
+
+        // Catalog files are parsed before the write lock is taken
+        StringReader students = new StringReader("S7,Seven,R7\n");
+        AtomicBoolean lookupFinished = new AtomicBoolean();
+        Reader slowReader = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                Thread lookup = new Thread(() -> service.getAttendancePercentage("S0"));
+                lookup.start();
+                try {
+                    lookup.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                lookupFinished.compareAndSet(false, !lookup.isAlive());
+                return students.read(buffer, offset, length);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        BulkImporter.ImportResult added = new BulkImporter(service).importStudents(slowReader);
+        check(lookupFinished.get() && added.imported() == 1,
+                "Catalog import reads its file without blocking readers");
+    }
+
+    /**
+     * Marks that cannot be packed must fail validation like any other bad
+     * input, so an import rejects the row instead of aborting.
+     */
+    private static void testUnstorableMarksAreRejected() throws AttendanceException {
+        AttendanceService service = newInMemoryService(2, 1);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        List<String> failures = new ArrayList<>();
+        List<Runnable> attempts = List.of(
+                () -> expectValidation(failures, "far future", () -> service.markAttendance("S0", "C1",
+                        LocalDate.of(3000, 1, 6), 1, true)),
+                () -> expectValidation(failures, "slot", () -> service.markAttendance("S0", "C1", monday, 500, true)),
+                () -> expectValidation(failures, "null subject", () -> service.markAttendance("S0", null, monday, 1,
+                        true)),
+                () -> expectValidation(failures, "null date", () -> service.markAttendance("S0", "C1", null, 1,
+                        true)),
+                () -> expectValidation(failures, "batch date", () -> service.markAttendanceBatch("C1",
+                        LocalDate.of(1000, 1, 1), 1, Map.of("S0", true))));
+        attempts.forEach(Runnable::run);
+
+        BulkImporter.ImportResult marks = new BulkImporter(service).importAttendance(new StringReader(
+                "S0,C1,2026-01-05,1,true\nS0,C1,0001-01-01,1,true\nS1,C1,2026-01-05,300,true\n"
+                        + "S1,,2026-01-05,2,true\nS1,C1,2026-01-05,1,false\n"));
+        check(failures.isEmpty() && marks.imported() == 2 && marks.rejected().size() == 3
+                && service.getAllAttendance().size() == 2,
+                "Out-of-range dates, slots and missing fields are rejected as validation errors" + failures);
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        void run() throws AttendanceException;
+    }
+
+    private static void expectValidation(List<String> failures, String name, Attempt attempt) {
+        try {
+            attempt.run();
+            failures.add(name + " accepted");
+        } catch (ValidationException e) {
+            // expected
+        } catch (Exception e) {
+            failures.add(name + " threw " + e);
+        }
+    }
+
+    /**
+     * Builds the trends early, keeps marking, correcting and removing, then
+     * compares rolling windows against a full scan.
+     */
+    private static void testTrendWindows() throws AttendanceException {
+        AttendanceService service = newInMemoryService(10, 3);
+        Random random = new Random(11);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        service.getStudentTrend("S0", monday, 7);
+
+        for (int i = 0; i < 3000; i++) {
+            String studentId = "S" + random.nextInt(10);
+            if (random.nextInt(400) == 0 && service.getAllStudents().stream().anyMatch(s -> s.id().equals(studentId))) {
+                service.removeStudent(studentId);
+                continue;
+            }
+            if (service.getAllStudents().stream().noneMatch(s -> s.id().equals(studentId))) {
+                continue;
+            }
+            // Mostly recent weeks, sometimes far back, so series grow both ways
+            int week = random.nextInt(10) == 0 ? -random.nextInt(30) : random.nextInt(12);
+            int slot = 1 + random.nextInt(3);
+            service.markAttendance(studentId, "C" + slot, monday.plusWeeks(week), slot, random.nextBoolean());
+        }
+
+        List<AttendanceRecord> all = service.getAllAttendance();
+        boolean matches = true;
+        for (int q = 0; q < 200; q++) {
+            LocalDate end = monday.plusDays(random.nextInt(140) - 40);
+            int days = random.nextBoolean() ? 7 : 30;
+            LocalDate start = end.minusDays(days - 1);
+            String studentId = "S" + random.nextInt(10);
+            String subjectCode = "C" + (1 + random.nextInt(3));
+            TrendWindow student = service.getStudentTrend(studentId, end, days);
+            TrendWindow subject = service.getSubjectTrend(subjectCode, end, days);
+            matches &= student.present() == count(all, r -> r.studentId().equals(studentId), start, end, true)
+                    && student.total() == count(all, r -> r.studentId().equals(studentId), start, end, false)
+                    && subject.present() == count(all, r -> r.subjectCode().equals(subjectCode), start, end, true)
+                    && subject.total() == count(all, r -> r.subjectCode().equals(subjectCode), start, end, false);
+        }
+        check(matches, "Rolling windows match a full scan");
+
+        List<TrendWindow> series = service.getSubjectTrendSeries("C1", monday, monday.plusDays(13), 7);
+        check(series.size() == 14 && series.get(13).equals(service.getSubjectTrend("C1", monday.plusDays(13), 7)),
+                "Trend series has one rolling window per day");
+
+        // The first build reads the snapshot unlocked while marks keep landing
+        AttendanceService racing = newInMemoryService(10, 1);
+        for (int week = 0; week < 200; week++) {
+            racing.markAttendance("S" + (week % 10), "C1", monday.minusWeeks(week), 1, week % 3 != 0);
+        }
+        Thread marker = new Thread(() -> {
+            try {
+                for (int week = 0; week < 200; week++) {
+                    racing.markAttendance("S" + (week % 10), "C1", monday.plusWeeks(week), 1, true);
+                }
+            } catch (AttendanceException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        marker.start();
+        racing.prepareTrends();
+        try {
+            marker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<AttendanceRecord> raced = racing.getAllAttendance();
+        LocalDate first = monday.minusWeeks(200);
+        LocalDate last = monday.plusWeeks(200);
+        TrendWindow whole = racing.getSubjectTrend("C1", last, (int) (last.toEpochDay() - first.toEpochDay()) + 1);
+        check(whole.total() == raced.size() && whole.present() == count(raced, r -> true, first, last, true),
+                "Trends built during concurrent marks include every mark");
+    }
+
+    /**
+     * Marks, corrects, bulk-imports and removes, then checks the ranking reads
+     * against percentages sorted from scratch.
+     */
+    private static void testRankingIndex() throws AttendanceException {
+        AttendanceService service = newInMemoryService(30, 3);
+        Random random = new Random(5);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        for (int i = 0; i < 2000; i++) {
+            String studentId = "S" + random.nextInt(30);
+            if (random.nextInt(300) == 0 && service.getAllStudents().stream().anyMatch(s -> s.id().equals(studentId))) {
+                service.removeStudent(studentId);
+                continue;
+            }
+            if (service.getAllStudents().stream().noneMatch(s -> s.id().equals(studentId))) {
+                continue;
+            }
+            int slot = 1 + random.nextInt(3);
+            service.markAttendance(studentId, "C" + slot, monday.plusWeeks(random.nextInt(6)), slot,
+                    random.nextInt(3) != 0);
+        }
+        new BulkImporter(service).importAttendance(new StringReader(
+                "S1,C1,2026-01-05,1,false\nS2,C1,2026-01-05,1,false\nS1,C2,2026-01-05,2,true\n"));
+        service.addStudent(new Student("NEW", "New Student", "RNEW"));
+
+        Comparator<StudentRank> order = Comparator.comparingDouble(StudentRank::percentage)
+                .thenComparing(r -> r.student().id());
+        List<StudentRank> expected = service.getAllStudents().stream()
+                .map(s -> new StudentRank(s, service.getAttendancePercentage(s.id())))
+                .sorted(order)
+                .toList();
+        check(service.getLowestAttendance(5).equals(expected.subList(0, 5)), "Lowest-K matches a full sort");
+        check(service.getRanksBelowAttendance(75.0).equals(expected.stream()
+                        .filter(r -> r.percentage() < 75.0).toList()),
+                "Threshold read matches a full filter");
+
+        List<StudentRank> bySubject = service.getAllStudents().stream()
+                .filter(s -> service.getAttendanceByStudent(s.id()).stream().anyMatch(r -> r.subjectCode().equals("C2")))
+                .map(s -> new StudentRank(s, service.getAttendancePercentageBySubject(s.id(), "C2")))
+                .sorted(order)
+                .toList();
+        check(service.getLowestAttendanceBySubject("C2", 4).equals(bySubject.subList(0, 4))
+                        && service.getHighestAttendanceBySubject("C2", 1).get(0)
+                                .equals(bySubject.get(bySubject.size() - 1)),
+                "Per-subject top-K matches a full sort");
+    }
+
+    /**
+     * Writers mark and correct from several threads while readers pull
+     * reports, rankings, trends and record lists; afterwards every derived
+     * view must still agree with the records.
+     */
+    private static void testConcurrentReadsAndWrites() throws Exception {
+        AttendanceService service = newInMemoryService(40, 3);
+        service.setReportParallelism(2, 16);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            writers.add(new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < 3000; i++) {
+                        int slot = 1 + random.nextInt(3);
+                        LocalDate date = monday.plusWeeks(random.nextInt(8));
+                        if (i % 50 == 0) {
+                            Map<String, Boolean> marks = new LinkedHashMap<>();
+                            for (int s = 0; s < 40; s++) {
+                                marks.put("S" + s, random.nextBoolean());
+                            }
+                            service.markAttendanceBatch("C" + slot, date, slot, marks);
+                        } else {
+                            service.markAttendance("S" + random.nextInt(40), "C" + slot, date, slot,
+                                    random.nextBoolean());
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        for (int t = 0; t < 4; t++) {
+            readers.add(new Thread(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        AttendanceReport report = service.getReport();
+                        for (int row = 0; row < report.studentCount(); row++) {
+                            report.overallPercentage(row);
+                        }
+                        service.getRanksBelowAttendance(50.0);
+                        service.getLowestAttendanceBySubject("C1", 5);
+                        service.getStudentTrend("S1", monday.plusWeeks(4), 30);
+                        service.getAttendanceBetween(monday, monday.plusWeeks(2)).size();
+                        service.getAllStudents().forEach(Student::id);
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        readers.forEach(Thread::start);
+        start.countDown();
+        for (Thread w : writers) {
+            w.join();
+        }
+        writing.set(false);
+        for (Thread r : readers) {
+            r.join();
+        }
+
+        errors.forEach(Throwable::printStackTrace);
+        check(errors.isEmpty(), "Concurrent marks and reads raise no errors");
+        List<AttendanceRecord> all = service.getAllAttendance();
+        boolean consistent = new HashSet<>(all).size() == all.size();
+        for (Student st : service.getAllStudents()) {
+            consistent &= service.getAttendancePercentage(st.id()) == percentage(all, st.id(), null);
+        }
+        SubjectAttendanceMatrix matrix = service.getReport().matrix();
+        for (int row = 0; row < matrix.studentCount(); row++) {
+            for (int col = 0; col < matrix.subjectCount(); col++) {
+                consistent &= matrix.percentage(row, col) == percentage(all, matrix.student(row).id(),
+                        matrix.subject(col).code());
+            }
+        }
+        List<StudentRank> lowest = service.getLowestAttendance(40);
+        for (int i = 1; i < lowest.size(); i++) {
+            consistent &= lowest.get(i - 1).percentage() <= lowest.get(i).percentage();
+        }
+        check(consistent, "Counters, reports and rankings agree after concurrent writes");
+        service.close();
+    }
+
+    private static long count(List<AttendanceRecord> records, Predicate<AttendanceRecord> match,
+            LocalDate from, LocalDate to, boolean presentOnly) {
+        return records.stream()
+                .filter(r -> match.test(r) && !r.date().isBefore(from) && !r.date().isAfter(to)
+                        && (!presentOnly || r.present()))
+                .count();
+    }
+
+    /**
+     * Builds a service over an in-memory store with the given students and a
+     * Monday timetable where slot n teaches subject Cn.
+     */
+    /**
+     * A snapshot taken before corrections, an insert into the middle of the
+     * history and a student removal must still read exactly as it did, while
+     * the next snapshot and report see every change.
+     */
+    /**
+     * Back-dated marks shift records across off-heap segments exactly as the
+     * heap storage does, and a run of single marks, each publishing a
+     * snapshot, copies about one 32 KB segment apiece rather than a large
+     * direct buffer.
+     */
+    private static void testOffHeapMarking() throws AttendanceException {
+        AttendanceService heap = new AttendanceService(new InMemoryDataManager(), null, StorageMode.HEAP);
+        AttendanceService offHeap = new AttendanceService(new InMemoryDataManager(), null, StorageMode.OFF_HEAP);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        Map<String, Boolean> marks = new LinkedHashMap<>();
+        for (AttendanceService service : List.of(heap, offHeap)) {
+            for (int i = 0; i < 200; i++) {
+                service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+                marks.put("S" + i, i % 3 != 0);
+            }
+            for (int slot = 1; slot <= 2; slot++) {
+                service.addSubject(new Subject("C" + slot, "Course " + slot));
+                service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, slot, "C" + slot));
+            }
+            // 200 weeks x 200 students fills about ten 4096-long segments
+            for (int week = 0; week < 200; week++) {
+                service.markAttendanceBatch("C1", monday.plusWeeks(week), 1, marks);
+            }
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            String studentId = "S" + random.nextInt(200);
+            LocalDate date = monday.plusWeeks(random.nextInt(200));
+            boolean present = random.nextBoolean();
+            heap.markAttendance(studentId, "C2", date, 2, present);
+            offHeap.markAttendance(studentId, "C2", date, 2, present);
+        }
+        check(offHeap.getAllAttendance().equals(heap.getAllAttendance()),
+                "Off-heap back-dated inserts match heap storage");
+
+        BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .findFirst()
+                .orElseThrow();
+        LocalDate lastWeek = monday.plusWeeks(199);
+        long before = direct.getTotalCapacity();
+        for (int i = 0; i < 200; i++) {
+            offHeap.markAttendance("S" + i, "C1", lastWeek, 1, i % 2 == 0);
+        }
+        long perMark = (direct.getTotalCapacity() - before) / 200;
+        check(perMark <= 2 * 4096 * Long.BYTES, "Off-heap marks copy a bounded amount of direct memory ("
+                + perMark + " bytes per mark)");
+    }
+
+    private static void testSnapshotIsolation(StorageMode mode) throws AttendanceException {
+        AttendanceService service = new AttendanceService(new InMemoryDataManager(), null, mode);
+        for (int i = 0; i < 50; i++) {
+            service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+        }
+        for (int slot = 1; slot <= 3; slot++) {
+            service.addSubject(new Subject("C" + slot, "Course " + slot));
+            service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, slot, "C" + slot));
+        }
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        Random random = new Random(7);
+        // 40 weeks x 3 slots x 50 students spans several storage chunks
+        for (int week = 0; week < 40; week++) {
+            for (int slot = 1; slot <= 3; slot++) {
+                Map<String, Boolean> marks = new LinkedHashMap<>();
+                for (int i = 0; i < 50; i++) {
+                    marks.put("S" + i, random.nextBoolean());
+                }
+                service.markAttendanceBatch("C" + slot, monday.plusWeeks(week), slot, marks);
+            }
+        }
+
+        AttendanceSnapshot before = service.getSnapshot();
+        List<AttendanceRecord> expected = new ArrayList<>(before.attendance());
+        List<Student> studentsBefore = new ArrayList<>(before.students());
+        AttendanceReport reportBefore = service.getReport();
+        double overallBefore = reportBefore.overallPercentage(0);
+
+        service.markAttendance("S0", "C1", monday, 1, !expected.get(0).present());
+        service.addTimetableEntry(new TimetableEntry(DayOfWeek.TUESDAY, 1, "C1"));
+        service.markAttendance("S3", "C1", monday.plusWeeks(1).plusDays(1), 1, true);
+        service.removeStudent("S7");
+        service.addStudent(new Student("S99", "Student 99", "R99"));
+
+        check(before.attendance().equals(expected) && before.students().equals(studentsBefore)
+                && before.attendanceCount() == 6000,
+                "Snapshot is unchanged by later writes (" + mode + ")");
+        check(reportBefore.overallPercentage(0) == overallBefore && reportBefore.version() == before.version(),
+                "Report built from a snapshot is unchanged by later writes (" + mode + ")");
+
+        AttendanceSnapshot after = service.getSnapshot();
+        List<AttendanceRecord> all = service.getAllAttendance();
+        boolean sorted = true;
+        for (int i = 1; i < all.size(); i++) {
+            sorted &= !all.get(i - 1).date().isAfter(all.get(i).date());
+        }
+        check(after.version() > before.version() && after.attendanceCount() == 6000 - 120 + 1 && sorted
+                && all.stream().noneMatch(r -> r.studentId().equals("S7"))
+                && after.students().stream().anyMatch(st -> st.id().equals("S99")),
+                "New snapshot sees corrections, inserts and removals (" + mode + ")");
+        AttendanceReport report = service.getReport();
+        boolean matches = report.version() == after.version();
+        for (int row = 0; row < report.studentCount(); row++) {
+            matches &= report.overallPercentage(row) == service.getAttendancePercentage(report.student(row).id());
+        }
+        check(matches, "Report overall percentages match the counters (" + mode + ")");
+    }
+
+    /**
+     * Threads correct the same few sessions concurrently, appending to a
+     * journal outside the service's write lock, while a student is removed;
+     * reloading from the journal must give back exactly the records in memory.
+     */
+    private static void testStripedMarkingPersistsInOrder() throws Exception {
+        Path journal = Files.createTempFile("striped", ".journal");
+        Files.delete(journal);
+        InMemoryDataManager base = new InMemoryDataManager();
+        DataManager dm = new JournaledDataManager(base, journal.toString(), 300);
+        AttendanceService service = new AttendanceService(dm);
+        for (int i = 0; i < 30; i++) {
+            service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+        }
+        for (int slot = 1; slot <= 3; slot++) {
+            service.addSubject(new Subject("C" + slot, "Course " + slot));
+            service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, slot, "C" + slot));
+        }
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < 800; i++) {
+                        int slot = 1 + random.nextInt(3);
+                        String student = "S" + random.nextInt(30);
+                        try {
+                            service.markAttendance(student, "C" + slot, monday.plusWeeks(random.nextInt(2)), slot,
+                                    random.nextBoolean());
+                        } catch (StudentNotFoundException e) {
+                            // S5 was removed
+                        }
+                        if (seed == 0 && i == 400) {
+                            service.removeStudent("S5");
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        errors.forEach(Throwable::printStackTrace);
+        Set<AttendanceRecord> inMemory = new HashSet<>(service.getAllAttendance());
+        Set<AttendanceRecord> reloaded = new HashSet<>(new AttendanceService(dm).getAllAttendance());
+        check(errors.isEmpty() && reloaded.equals(inMemory)
+                && inMemory.stream().noneMatch(r -> r.studentId().equals("S5")),
+                "Concurrent striped marks persist in the order they were applied");
+        Files.deleteIfExists(journal);
+    }
+
+    /**
+     * Marks and reads through the JSON endpoints of a server on a free port,
+     * including the error statuses for bad input and unknown students.
+     */
+    private static void testHttpServer() throws Exception {
+        AttendanceService service = newInMemoryService(3, 2);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        try (AttendanceServer server = new AttendanceServer(service, 0)) {
+            server.start();
+            String url = "http://localhost:" + server.port();
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> mark = post(client, url + "/attendance/mark",
+                    "{\"studentId\":\"S0\",\"subjectCode\":\"C1\",\"date\":\"" + monday
+                            + "\",\"slot\":1,\"present\":true}");
+            HttpResponse<String> batch = post(client, url + "/attendance/batch",
+                    "{\"subjectCode\":\"C2\",\"date\":\"" + monday
+                            + "\",\"slot\":2,\"marks\":{\"S0\":false,\"S1\":true,\"S9\":true}}");
+            Map<?, ?> batchResult = (Map<?, ?>) Json.parse(batch.body());
+            check(mark.statusCode() == 200 && batch.statusCode() == 200
+                    && batchResult.get("marked").equals(2L) && service.getAllAttendance().size() == 3,
+                    "HTTP mark and batch endpoints record attendance");
+
+            List<?> students = (List<?>) Json.parse(get(client, url + "/students").body());
+            Map<?, ?> report = (Map<?, ?>) Json.parse(get(client, url + "/reports/percentages/S0").body());
+            List<?> below = (List<?>) Json.parse(get(client, url + "/reports/below?threshold=60").body());
+            check(students.size() == 3 && report.get("overall").equals(50.0)
+                    && ((Map<?, ?>) report.get("subjects")).get("C1").equals(100.0)
+                    && below.size() == 2 && ((Map<?, ?>) below.get(1)).get("id").equals("S0"),
+                    "HTTP lookups and reports reflect the marks");
+
+            check(post(client, url + "/attendance/mark", "{\"studentId\":").statusCode() == 400
+                    && post(client, url + "/attendance/mark", "{\"studentId\":\"S0\"}").statusCode() == 400
+                    && get(client, url + "/students/S99").statusCode() == 404
+                    && post(client, url + "/attendance/mark", "{\"studentId\":\"S0\",\"subjectCode\":\"XX\","
+                            + "\"date\":\"2026-01-05\",\"slot\":1,\"present\":true}").statusCode() == 404
+                    && get(client, url + "/attendance/mark").statusCode() == 405,
+                    "HTTP errors map to 400, 404 and 405");
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, String url) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> post(HttpClient client, String url, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Async mutators apply in memory at once and complete when the adapter's
+     * background thread has saved them; blocking and async calls reach
+     * storage in the order they were made.
+     */
+    private static void testAsyncPersistence() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        InMemoryDataManager base = new InMemoryDataManager() {
+            @Override
+            public synchronized void saveStudents(List<Student> students) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.saveStudents(students);
+            }
+        };
+        AsyncDataManagerAdapter adapter = new AsyncDataManagerAdapter(base);
+        AttendanceService service = new AttendanceService(adapter);
+
+        CompletableFuture<Void> first = service.addStudentAsync(new Student("S1", "One", "R1"));
+        CompletableFuture<Void> second = service.addStudentAsync(new Student("S2", "Two", "R2"));
+        boolean duplicateRejected = false;
+        try {
+            service.addStudentAsync(new Student("S1", "Again", "R9"));
+        } catch (DuplicateRecordException e) {
+            duplicateRejected = true;
+        }
+        check(!first.isDone() && !second.isDone() && service.getAllStudents().size() == 2 && duplicateRejected,
+                "Async add applies in memory while the save is pending");
+        gate.countDown();
+        second.get();
+        check(first.isDone() && base.loadStudents().size() == 2, "Async saves complete in submission order");
+
+        service.addSubject(new Subject("C1", "Course"));
+        service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, 1, "C1"));
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        List<CompletableFuture<Void>> marks = new ArrayList<>();
+        for (int week = 0; week < 20; week++) {
+            marks.add(service.markAttendanceAsync("S" + (1 + week % 2), "C1", monday.plusWeeks(week), 1, week % 3 > 0));
+        }
+        CompletableFuture<Void> removal = service.removeStudentAsync("S2");
+        service.markAttendance("S1", "C1", monday, 1, false);
+        CompletableFuture.allOf(marks.toArray(CompletableFuture<?>[]::new)).get();
+        removal.get();
+        Set<AttendanceRecord> reloaded = new HashSet<>(new AttendanceService(base).getAllAttendance());
+        check(reloaded.equals(new HashSet<>(service.getAllAttendance())) && reloaded.size() == 10,
+                "Mixed async and blocking writes persist in order");
+
+        adapter.close();
+        CompletableFuture<Void> afterClose = service.addSubjectAsync(new Subject("C2", "Late"));
+        boolean blockingFailed = false;
+        try {
+            service.addSubject(new Subject("C3", "Later"));
+        } catch (AttendanceException e) {
+            blockingFailed = true;
+        }
+        check(afterClose.isCompletedExceptionally() && blockingFailed,
+                "Saves after close fail instead of being dropped");
+    }
+
+    /**
+     * Each write reports its changes to listeners in one call, and the EDT
+     * listener delivers everything queued before the EDT runs as one batch.
+     */
+    /**
+     * A listener that writes back into the service, from its own thread and
+     * from another one marking the same session, neither blocks nor sees
+     * batches out of order or re-entrantly.
+     */
+    private static void testListenersRunOutsideLocks() throws Exception {
+        AttendanceService service = newInMemoryService(3, 1);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger depth = new AtomicInteger();
+        AtomicBoolean otherThreadFinished = new AtomicBoolean();
+        AtomicBoolean reentered = new AtomicBoolean();
+        service.addAttendanceListener(events -> {
+            reentered.compareAndSet(false, depth.incrementAndGet() > 1);
+            try {
+                String studentId = ((AttendanceEvent.RecordUpserted) events.get(0)).record().studentId();
+                order.add(studentId);
+                if (studentId.equals("S0")) {
+                    Thread other = new Thread(() -> {
+                        try {
+                            service.markAttendance("S1", "C1", monday, 1, true);
+                        } catch (AttendanceException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    other.start();
+                    other.join(5000);
+                    otherThreadFinished.set(!other.isAlive());
+                    service.markAttendance("S2", "C1", monday, 1, true);
+                }
+            } catch (InterruptedException | AttendanceException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                depth.decrementAndGet();
+            }
+        });
+
+        service.markAttendance("S0", "C1", monday, 1, true);
+        check(otherThreadFinished.get() && !reentered.get() && order.equals(List.of("S0", "S1", "S2")),
+                "Listeners run outside the service locks, one batch at a time in write order");
+    }
+
+    private static void testChangeEvents() throws Exception {
+        AttendanceService service = newInMemoryService(3, 2);
+        List<List<AttendanceEvent>> calls = Collections.synchronizedList(new ArrayList<>());
+        service.addAttendanceListener(calls::add);
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+
+        service.addStudent(new Student("S9", "Nine", "R9"));
+        service.markAttendance("S0", "C1", monday, 1, true);
+        service.markAttendance("S0", "C1", monday, 1, false);
+        service.markAttendanceBatch("C2", monday, 2, Map.of("S0", true, "S1", true, "S2", false));
+        service.removeSubject("C2");
+        service.removeStudent("S9");
+        AttendanceEvent.RecordUpserted created = (AttendanceEvent.RecordUpserted) calls.get(1).get(0);
+        AttendanceEvent.RecordUpserted corrected = (AttendanceEvent.RecordUpserted) calls.get(2).get(0);
+        check(calls.size() == 6
+                && calls.get(0).equals(List.of(new AttendanceEvent.StudentAdded(new Student("S9", "Nine", "R9"))))
+                && created.replaced() == null && corrected.replaced().equals(created.record())
+                && !corrected.record().present()
+                && calls.get(3).size() == 3 && calls.get(3).stream().allMatch(e -> e instanceof AttendanceEvent.RecordUpserted)
+                && calls.get(4).size() == 2 && calls.get(4).get(0) instanceof AttendanceEvent.SubjectRemoved
+                && calls.get(4).get(1) instanceof AttendanceEvent.TimetableEntryRemoved
+                && calls.get(5).get(0) instanceof AttendanceEvent.StudentRemoved,
+                "Each write publishes its typed change events once");
+
+        // Hold the EDT so several writes queue up before it runs
+        CountDownLatch edtBusy = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> {
+            try {
+                edtBusy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AtomicInteger batches = new AtomicInteger();
+        List<AttendanceEvent> delivered = new ArrayList<>();
+        service.addAttendanceListener(new EdtAttendanceListener(events -> {
+            batches.incrementAndGet();
+            delivered.addAll(events);
+        }));
+        for (int week = 1; week <= 5; week++) {
+            service.markAttendance("S1", "C1", monday.plusWeeks(week), 1, true);
+        }
+        edtBusy.countDown();
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        check(batches.get() == 1 && delivered.size() == 5, "EDT listener coalesces queued events into one batch");
+    }
+
+    private static void testHistoryTableModel() throws Exception {
+        AttendanceService service = newInMemoryService(4, 2);
+        service.addStudent(new Student("S9", "Another", "R9"));
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        Random random = new Random(7);
+        for (int week = 0; week < 10; week++) {
+            for (int slot = 1; slot <= 2; slot++) {
+                Map<String, Boolean> marks = new LinkedHashMap<>();
+                for (String id : List.of("S0", "S1", "S2", "S3", "S9")) {
+                    marks.put(id, random.nextBoolean());
+                }
+                service.markAttendanceBatch("C" + slot, monday.plusWeeks(week), slot, marks);
+            }
+        }
+        AttendanceHistoryTableModel model = new AttendanceHistoryTableModel(service);
+        List<List<Object>> shown = tableRows(model); // what the table has been told through events
+        model.addTableModelListener(e -> mirror(model, shown, e));
+        service.addAttendanceListener(model::apply);
+        Comparator<List<Object>> bySubject = Comparator.comparing(row -> (String) row.get(1));
+        Comparator<List<Object>> byStatus = Comparator.comparing(row -> (String) row.get(4));
+
+        check(model.getRowCount() == 100 && shown.equals(expectedHistory(service, "", null)),
+                "History model shows every record newest first");
+
+        model.setStudentFilter("anoth");
+        service.markAttendanceBatch("C1", monday.plusWeeks(3).plusDays(1), 1, Map.of("S9", true, "S0", true));
+        service.markAttendance("S9", "C2", monday.plusWeeks(2), 2, false);
+        check(shown.equals(tableRows(model)) && shown.equals(expectedHistory(service, "anoth", null))
+                && shown.size() == 21, "Filtered history follows inserts and updates");
+
+        model.sortBy(AttendanceHistoryTableModel.SUBJECT_COLUMN);
+        boolean ascending = shown.equals(expectedHistory(service, "anoth", bySubject));
+        model.sortBy(AttendanceHistoryTableModel.SUBJECT_COLUMN);
+        check(ascending && !model.isAscending()
+                && shown.equals(expectedHistory(service, "anoth", bySubject.reversed())),
+                "History sorts by column and flips on the second click");
+
+        model.setStudentFilter("");
+        model.sortBy(AttendanceHistoryTableModel.STATUS_COLUMN);
+        service.markAttendance("S1", "C1", monday, 1, true);
+        service.markAttendance("S1", "C1", monday, 1, false);
+        service.markAttendance("S2", "C2", monday.plusWeeks(20), 2, true);
+        check(shown.equals(tableRows(model)) && shown.equals(expectedHistory(service, "", byStatus)),
+                "Sorted history moves and inserts changed rows in order");
+
+        model.clearSort();
+        service.markAttendanceBatch("C2", monday.plusWeeks(4), 2, Map.of("S0", false, "S1", true));
+        service.markAttendanceBatch("C1", monday.plusWeeks(30), 1, Map.of("S0", true, "S3", true));
+        service.removeSubject("C2");
+        service.removeStudent("S9");
+        check(shown.equals(tableRows(model)) && shown.equals(expectedHistory(service, "", null))
+                && model.getRowCount() == 84 && "C2".equals(model.getValueAt(2, 1)),
+                "History follows batches, subject and student removal");
+    }
+
+    private static List<List<Object>> tableRows(TableModel model) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            rows.add(rowValues(model, row));
+        }
+        return rows;
+    }
+
+    private static List<Object> rowValues(TableModel model, int row) {
+        List<Object> values = new ArrayList<>();
+        for (int column = 0; column < model.getColumnCount(); column++) {
+            values.add(model.getValueAt(row, column));
+        }
+        return values;
+    }
+
+    // Replays a table event the way JTable would see it
+    private static void mirror(TableModel model, List<List<Object>> shown, TableModelEvent e) {
+        if (e.getLastRow() == Integer.MAX_VALUE) {
+            shown.clear();
+            shown.addAll(tableRows(model));
+            return;
+        }
+        for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+            switch (e.getType()) {
+                case TableModelEvent.INSERT -> shown.add(row, rowValues(model, row));
+                case TableModelEvent.DELETE -> shown.remove(e.getFirstRow());
+                default -> shown.set(row, rowValues(model, row));
+            }
+        }
+    }
+
+    private static List<List<Object>> expectedHistory(AttendanceService service, String filter,
+            Comparator<List<Object>> order) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (AttendanceRecord r : service.getAttendanceNewestFirst()) {
+            String student = service.getAllStudents().stream()
+                    .filter(s -> s.id().equals(r.studentId()))
+                    .map(Student::name)
+                    .findFirst().orElse("Unknown");
+            String subject = service.findSubjectByCode(r.subjectCode()).map(Subject::name).orElse(r.subjectCode());
+            if (student.toLowerCase().contains(filter)) {
+                rows.add(List.of(student, subject, r.date().toString(), r.slotNumber(),
+                        r.present() ? "Present" : "Absent"));
+            }
+        }
+        if (order != null) {
+            rows.sort(order); // stable, so ties stay newest first
+        }
+        return rows;
+    }
+
+    static AttendanceService newInMemoryService(int students, int slots) throws AttendanceException {
+        AttendanceService service = new AttendanceService(new InMemoryDataManager());
+        for (int i = 0; i < students; i++) {
+            service.addStudent(new Student("S" + i, "Student " + i, "R" + i));
+        }
+        for (int slot = 1; slot <= slots; slot++) {
+            service.addSubject(new Subject("C" + slot, "Course " + slot));
+            service.addTimetableEntry(new TimetableEntry(DayOfWeek.MONDAY, slot, "C" + slot));
+        }
+        return service;
+    }
+
+    private static void check(boolean condition, String name) {
+        System.out.println((condition ? "PASS: " : "FAIL: ") + name);
+    }
 }
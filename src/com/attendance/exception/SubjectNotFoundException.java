@@ -0,0 +1,11 @@
+package com.attendance.exception;
+
+/**
+ * Thrown when a subject code is not found in the system.
+ * Demonstrates: Custom exception extending a base exception.
+ */
+public class SubjectNotFoundException extends AttendanceException {
+    public SubjectNotFoundException(String subjectCode) {
+        super("Subject not found with code: " + subjectCode);
+    }
+}
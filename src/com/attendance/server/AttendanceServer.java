@@ -0,0 +1,374 @@
+package com.attendance.server;
+
+import com.attendance.exception.DuplicateRecordException;
+import com.attendance.exception.StudentNotFoundException;
+import com.attendance.exception.SubjectNotFoundException;
+import com.attendance.exception.ValidationException;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.model.TimetableEntry;
+import com.attendance.service.AttendanceService;
+import com.attendance.service.BatchMarkResult;
+import com.attendance.service.StudentRank;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless JSON API over one shared {@link AttendanceService}, so classroom
+ * devices can submit marks without the desktop UI. Each request runs on its
+ * own virtual thread when the JVM has them (Java 21+) and on a fixed pool of
+ * platform threads otherwise.
+ *
+ * <pre>
+ * POST /attendance/mark          {"studentId","subjectCode","date","slot","present"}
+ * POST /attendance/batch         {"subjectCode","date","slot","marks":{"S1":true,...}}
+ * GET  /students[/{id}]
+ * GET  /subjects[/{code}]
+ * GET  /timetable
+ * GET  /reports/percentages[/{studentId}]
+ * GET  /reports/below?threshold=75
+ * </pre>
+ *
+ * Errors are returned as {"error": message} with 400 for invalid input, 404
+ * for unknown students or subjects, 405 for a wrong method and 409 for
+ * duplicates.
+ * Demonstrates: com.sun.net.httpserver, virtual threads, reflection.
+ */
+public class AttendanceServer implements AutoCloseable {
+    private static final int BACKLOG = 4096;
+    private static final int FALLBACK_THREADS = 256;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    /**
+     * Tunes the JDK HTTP server for many keep-alive clients through JVM-wide
+     * system properties, leaving any already set. Both are read once when the
+     * server implementation loads, so entry points call this before creating
+     * the first server. It writes headers and body as separate segments; with
+     * Nagle on, a keep-alive client's delayed ACK stalls every response by
+     * ~40ms. It also closes idle connections beyond 200, which races with
+     * clients reusing them when thousands are open.
+     */
+    public static void configureJdkHttpServer() {
+        defaultProperty("sun.net.httpserver.nodelay", "true");
+        defaultProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG));
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private final AttendanceService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public AttendanceServer(AttendanceService service, int port) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+
+        route("/attendance/mark", "POST", this::mark);
+        route("/attendance/batch", "POST", this::markBatch);
+        route("/students", "GET", this::students);
+        route("/subjects", "GET", this::subjects);
+        route("/timetable", "GET", ex -> timetable());
+        route("/reports/percentages", "GET", this::percentages);
+        route("/reports/below", "GET", this::below);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * The bound port; useful when constructed with port 0.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for those in flight and stops
+     * the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A virtual-thread-per-task executor when the running JVM provides one,
+     * looked up reflectively so the code still compiles and runs on 17.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread t = new Thread(r, "http-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // --- Endpoints ---
+
+    private Object mark(HttpExchange ex) throws Exception {
+        Map<String, Object> body = readObject(ex);
+        service.markAttendance(string(body, "studentId"), string(body, "subjectCode"), date(body, "date"),
+                integer(body, "slot"), bool(body, "present"));
+        return Map.of("status", "marked");
+    }
+
+    private Object markBatch(HttpExchange ex) throws Exception {
+        Map<String, Object> body = readObject(ex);
+        if (!(body.get("marks") instanceof Map<?, ?> raw)) {
+            throw new ValidationException("Field 'marks' must be an object of student id to present flag");
+        }
+        Map<String, Boolean> marks = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> e : raw.entrySet()) {
+            marks.put((String) e.getKey(), e.getValue() instanceof Boolean b ? b : null);
+        }
+        BatchMarkResult result = service.markAttendanceBatch(string(body, "subjectCode"), date(body, "date"),
+                integer(body, "slot"), marks);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("marked", result.marked());
+        response.put("failures", result.failures());
+        return response;
+    }
+
+    private Object students(HttpExchange ex) throws Exception {
+        String id = pathTail(ex, "/students");
+        if (id == null) {
+            return service.getAllStudents().stream().map(AttendanceServer::toJson).toList();
+        }
+        return toJson(service.findStudentById(id));
+    }
+
+    private Object subjects(HttpExchange ex) throws Exception {
+        String code = pathTail(ex, "/subjects");
+        if (code == null) {
+            return service.getAllSubjects().stream().map(AttendanceServer::toJson).toList();
+        }
+        return toJson(service.findSubjectByCode(code)
+                .orElseThrow(() -> new HttpError(404, "Subject not found: " + code)));
+    }
+
+    private Object timetable() {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (TimetableEntry t : service.getTimetable()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("day", t.day().toString());
+            entry.put("slot", t.slotNumber());
+            entry.put("subjectCode", t.subjectCode());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private Object percentages(HttpExchange ex) throws Exception {
+        String id = pathTail(ex, "/reports/percentages");
+        if (id == null) {
+            return service.getAllAttendancePercentages();
+        }
+        Student student = service.findStudentById(id);
+        Map<String, Object> bySubject = new LinkedHashMap<>();
+        for (Subject subject : service.getAllSubjects()) {
+            bySubject.put(subject.code(), service.getAttendancePercentageBySubject(id, subject.code()));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("studentId", student.id());
+        response.put("overall", service.getAttendancePercentage(id));
+        response.put("subjects", bySubject);
+        return response;
+    }
+
+    private Object below(HttpExchange ex) throws Exception {
+        String threshold = queryParameter(ex, "threshold");
+        double limit;
+        try {
+            limit = threshold == null ? 75.0 : Double.parseDouble(threshold);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid threshold: " + threshold);
+        }
+        List<Map<String, Object>> ranks = new ArrayList<>();
+        for (StudentRank rank : service.getRanksBelowAttendance(limit)) {
+            Map<String, Object> entry = toJson(rank.student());
+            entry.put("percentage", rank.percentage());
+            ranks.add(entry);
+        }
+        return ranks;
+    }
+
+    private static Map<String, Object> toJson(Student s) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", s.id());
+        json.put("name", s.name());
+        json.put("rollNo", s.rollNo());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Subject s) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("code", s.code());
+        json.put("name", s.name());
+        return json;
+    }
+
+    // --- Plumbing ---
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Object handle(HttpExchange exchange) throws Exception;
+    }
+
+    /**
+     * An error response with a specific status code.
+     */
+    private static final class HttpError extends Exception {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void route(String path, String method, Endpoint endpoint) {
+        server.createContext(path, ex -> {
+            int status = 200;
+            Object response;
+            try {
+                if (!ex.getRequestMethod().equalsIgnoreCase(method)) {
+                    throw new HttpError(405, "Use " + method + " for " + path);
+                }
+                response = endpoint.handle(ex);
+            } catch (HttpError e) {
+                status = e.status;
+                response = Map.of("error", e.getMessage());
+            } catch (ValidationException | IllegalArgumentException e) {
+                status = 400;
+                response = Map.of("error", String.valueOf(e.getMessage()));
+            } catch (StudentNotFoundException | SubjectNotFoundException e) {
+                status = 404;
+                response = Map.of("error", e.getMessage());
+            } catch (DuplicateRecordException e) {
+                status = 409;
+                response = Map.of("error", e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                response = Map.of("error", String.valueOf(e.getMessage()));
+            }
+            send(ex, status, response);
+        });
+    }
+
+    private static void send(HttpExchange ex, int status, Object response) throws IOException {
+        byte[] bytes = Json.write(response).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> readObject(HttpExchange ex) throws IOException, HttpError {
+        byte[] bytes;
+        try (InputStream in = ex.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        Object value = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        if (!(value instanceof Map<?, ?>)) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) value;
+        return map;
+    }
+
+    /**
+     * The decoded path segment after the context path, or null when the
+     * request is for the context itself.
+     */
+    private static String pathTail(HttpExchange ex, String context) {
+        String path = ex.getRequestURI().getPath();
+        if (path.length() <= context.length() + 1) {
+            return null;
+        }
+        return URLDecoder.decode(path.substring(context.length() + 1), StandardCharsets.UTF_8);
+    }
+
+    private static String queryParameter(HttpExchange ex, String name) {
+        String query = ex.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String string(Map<String, Object> body, String field) throws ValidationException {
+        if (!(body.get(field) instanceof String s)) {
+            throw new ValidationException("Field '" + field + "' must be a string");
+        }
+        return s;
+    }
+
+    private static int integer(Map<String, Object> body, String field) throws ValidationException {
+        if (!(body.get(field) instanceof Long n) || n < Integer.MIN_VALUE || n > Integer.MAX_VALUE) {
+            throw new ValidationException("Field '" + field + "' must be an integer");
+        }
+        return n.intValue();
+    }
+
+    private static boolean bool(Map<String, Object> body, String field) throws ValidationException {
+        if (!(body.get(field) instanceof Boolean b)) {
+            throw new ValidationException("Field '" + field + "' must be true or false");
+        }
+        return b;
+    }
+
+    private static LocalDate date(Map<String, Object> body, String field) throws ValidationException {
+        String text = string(body, field);
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Field '" + field + "' must be a date (yyyy-MM-dd)");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.attendance.service;
+
+import com.attendance.model.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link DataManager}: every save and load
+ * returns at once with a future that completes when the storage operation
+ * has finished, or completes exceptionally with the
+ * {@link com.attendance.exception.AttendanceException} it failed with.
+ * Operations take effect in the order they were called.
+ * Demonstrates: CompletableFuture, interfaces.
+ */
+public interface AsyncDataManager {
+    CompletableFuture<Void> saveStudentsAsync(List<Student> students);
+
+    CompletableFuture<List<Student>> loadStudentsAsync();
+
+    CompletableFuture<Void> saveAttendanceAsync(List<AttendanceRecord> records);
+
+    CompletableFuture<List<AttendanceRecord>> loadAttendanceAsync();
+
+    /**
+     * Loads the records dated within [from, to]; either bound may be null.
+     */
+    CompletableFuture<List<AttendanceRecord>> loadAttendanceAsync(LocalDate from, LocalDate to);
+
+    CompletableFuture<Void> saveSubjectsAsync(List<Subject> subjects);
+
+    CompletableFuture<List<Subject>> loadSubjectsAsync();
+
+    CompletableFuture<Void> saveTimeSlotsAsync(List<TimeSlot> slots);
+
+    CompletableFuture<List<TimeSlot>> loadTimeSlotsAsync();
+
+    CompletableFuture<Void> saveTimetableAsync(List<TimetableEntry> entries);
+
+    CompletableFuture<List<TimetableEntry>> loadTimetableAsync();
+
+    // --- Incremental attendance persistence ---
+
+    /**
+     * @see DataManager#supportsIncrementalAttendance()
+     */
+    boolean supportsIncrementalAttendance();
+
+    /**
+     * @see DataManager#appendAttendance(List)
+     */
+    CompletableFuture<Void> appendAttendanceAsync(List<AttendanceRecord> upserts);
+
+    /**
+     * @see DataManager#deleteAttendanceForStudent(String)
+     */
+    CompletableFuture<Void> deleteAttendanceForStudentAsync(String studentId);
+}
@@ -0,0 +1,275 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs a blocking DataManager on a single background thread, so operations
+ * are applied one at a time in the order they were submitted. It is also a
+ * DataManager itself, whose blocking methods queue behind the same thread
+ * and wait; a service built on it can mix blocking and async calls without
+ * reordering writes.
+ * Demonstrates: Adapter pattern, CompletableFuture, single-thread executor.
+ */
+public class AsyncDataManagerAdapter implements DataManager, AsyncDataManager, AutoCloseable {
+    private final DataManager delegate;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor; // null when operations run on the caller
+
+    /**
+     * Adapts a {@link SerializedDataManager} in the working directory.
+     */
+    public AsyncDataManagerAdapter() {
+        this(new SerializedDataManager());
+    }
+
+    public AsyncDataManagerAdapter(DataManager delegate) {
+        this(delegate, Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "datamanager-async");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    private AsyncDataManagerAdapter(DataManager delegate, ExecutorService ownedExecutor) {
+        this.delegate = delegate;
+        this.executor = ownedExecutor != null ? ownedExecutor : Runnable::run;
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    /**
+     * An adapter that runs every operation on the calling thread and returns
+     * an already completed future.
+     */
+    static AsyncDataManagerAdapter inline(DataManager delegate) {
+        return new AsyncDataManagerAdapter(delegate, null);
+    }
+
+    // --- Async operations ---
+    @Override
+    public CompletableFuture<Void> saveStudentsAsync(List<Student> students) {
+        List<Student> copy = copy(students);
+        return run(() -> delegate.saveStudents(copy));
+    }
+
+    @Override
+    public CompletableFuture<List<Student>> loadStudentsAsync() {
+        return submit(delegate::loadStudents);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAttendanceAsync(List<AttendanceRecord> records) {
+        List<AttendanceRecord> copy = copy(records);
+        return run(() -> delegate.saveAttendance(copy));
+    }
+
+    @Override
+    public CompletableFuture<List<AttendanceRecord>> loadAttendanceAsync() {
+        return submit(delegate::loadAttendance);
+    }
+
+    @Override
+    public CompletableFuture<List<AttendanceRecord>> loadAttendanceAsync(LocalDate from, LocalDate to) {
+        return submit(() -> delegate.loadAttendance(from, to));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveSubjectsAsync(List<Subject> subjects) {
+        List<Subject> copy = copy(subjects);
+        return run(() -> delegate.saveSubjects(copy));
+    }
+
+    @Override
+    public CompletableFuture<List<Subject>> loadSubjectsAsync() {
+        return submit(delegate::loadSubjects);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveTimeSlotsAsync(List<TimeSlot> slots) {
+        List<TimeSlot> copy = copy(slots);
+        return run(() -> delegate.saveTimeSlots(copy));
+    }
+
+    @Override
+    public CompletableFuture<List<TimeSlot>> loadTimeSlotsAsync() {
+        return submit(delegate::loadTimeSlots);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveTimetableAsync(List<TimetableEntry> entries) {
+        List<TimetableEntry> copy = copy(entries);
+        return run(() -> delegate.saveTimetable(copy));
+    }
+
+    @Override
+    public CompletableFuture<List<TimetableEntry>> loadTimetableAsync() {
+        return submit(delegate::loadTimetable);
+    }
+
+    @Override
+    public boolean supportsIncrementalAttendance() {
+        return delegate.supportsIncrementalAttendance();
+    }
+
+    @Override
+    public CompletableFuture<Void> appendAttendanceAsync(List<AttendanceRecord> upserts) {
+        List<AttendanceRecord> copy = copy(upserts);
+        return run(() -> delegate.appendAttendance(copy));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAttendanceForStudentAsync(String studentId) {
+        return run(() -> delegate.deleteAttendanceForStudent(studentId));
+    }
+
+    // --- Blocking operations queue behind the async ones ---
+    @Override
+    public void saveStudents(List<Student> students) throws AttendanceException {
+        await(saveStudentsAsync(students));
+    }
+
+    @Override
+    public List<Student> loadStudents() throws AttendanceException {
+        return await(loadStudentsAsync());
+    }
+
+    @Override
+    public void saveAttendance(List<AttendanceRecord> records) throws AttendanceException {
+        await(saveAttendanceAsync(records));
+    }
+
+    @Override
+    public List<AttendanceRecord> loadAttendance() throws AttendanceException {
+        return await(loadAttendanceAsync());
+    }
+
+    @Override
+    public List<AttendanceRecord> loadAttendance(LocalDate from, LocalDate to) throws AttendanceException {
+        return await(loadAttendanceAsync(from, to));
+    }
+
+    @Override
+    public void saveSubjects(List<Subject> subjects) throws AttendanceException {
+        await(saveSubjectsAsync(subjects));
+    }
+
+    @Override
+    public List<Subject> loadSubjects() throws AttendanceException {
+        return await(loadSubjectsAsync());
+    }
+
+    @Override
+    public void saveTimeSlots(List<TimeSlot> slots) throws AttendanceException {
+        await(saveTimeSlotsAsync(slots));
+    }
+
+    @Override
+    public List<TimeSlot> loadTimeSlots() throws AttendanceException {
+        return await(loadTimeSlotsAsync());
+    }
+
+    @Override
+    public void saveTimetable(List<TimetableEntry> entries) throws AttendanceException {
+        await(saveTimetableAsync(entries));
+    }
+
+    @Override
+    public List<TimetableEntry> loadTimetable() throws AttendanceException {
+        return await(loadTimetableAsync());
+    }
+
+    @Override
+    public void appendAttendance(List<AttendanceRecord> upserts) throws AttendanceException {
+        await(appendAttendanceAsync(upserts));
+    }
+
+    @Override
+    public void deleteAttendanceForStudent(String studentId) throws AttendanceException {
+        await(deleteAttendanceForStudentAsync(studentId));
+    }
+
+    // --- Lifecycle ---
+
+    /**
+     * Waits for every queued operation and stops the background thread.
+     */
+    @Override
+    public void close() throws AttendanceException {
+        if (ownedExecutor == null) {
+            return;
+        }
+        try {
+            await(submit(() -> null));
+        } finally {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Waits for a future from this adapter, rethrowing the exception the
+     * operation failed with.
+     */
+    static <T> T await(CompletableFuture<T> future) throws AttendanceException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AttendanceException("Interrupted while waiting for storage", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AttendanceException ae) {
+                throw ae;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new AttendanceException("Storage operation failed", cause);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws AttendanceException;
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws AttendanceException;
+    }
+
+    private CompletableFuture<Void> run(Action action) {
+        return submit(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new AttendanceException("Data manager has been closed", e));
+        }
+        return future;
+    }
+
+    // Queued saves must not see later changes to the caller's list
+    private <T> List<T> copy(List<T> list) {
+        return ownedExecutor == null ? list : new ArrayList<>(list);
+    }
+}
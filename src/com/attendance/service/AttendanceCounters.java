@@ -0,0 +1,100 @@
+package com.attendance.service;
+
+import com.attendance.model.AttendanceRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Present/total counters per student and per (student, subject), updated as
+ * records are marked, corrected or removed so percentages are answered
+ * without scanning the attendance history.
+ */
+class AttendanceCounters {
+    private final Map<String, Counter> byStudent = new HashMap<>();
+    private final Map<String, Map<String, Counter>> byStudentSubject = new HashMap<>();
+
+    AttendanceCounters(AttendanceStore store) {
+        store.scan(null, null, (student, subject, epochDay, slot, present) ->
+                add(store.studentId(student), store.subjectCode(subject), present, 1));
+    }
+
+    /**
+     * Accounts for an upsert: the replaced record (if any) is taken out and
+     * the new one counted.
+     */
+    void update(AttendanceRecord replaced, AttendanceRecord record) {
+        if (replaced != null) {
+            add(replaced, -1);
+        }
+        add(record, 1);
+    }
+
+    /**
+     * Takes a record that no longer exists out of the counts.
+     */
+    void remove(AttendanceRecord record) {
+        add(record, -1);
+    }
+
+    void removeStudent(String studentId) {
+        byStudent.remove(studentId);
+        byStudentSubject.remove(studentId);
+    }
+
+    double percentage(String studentId) {
+        Counter c = byStudent.get(studentId);
+        return c == null ? 0.0 : c.percentage();
+    }
+
+    double percentage(String studentId, String subjectCode) {
+        Map<String, Counter> subjects = byStudentSubject.get(studentId);
+        Counter c = subjects == null ? null : subjects.get(subjectCode);
+        return c == null ? 0.0 : c.percentage();
+    }
+
+    /**
+     * Whether any record of the student in the subject is counted.
+     */
+    boolean hasRecords(String studentId, String subjectCode) {
+        Map<String, Counter> subjects = byStudentSubject.get(studentId);
+        Counter c = subjects == null ? null : subjects.get(subjectCode);
+        return c != null && c.total > 0;
+    }
+
+    /**
+     * Codes of the subjects the student has counted records in.
+     */
+    Set<String> subjectsOf(String studentId) {
+        Map<String, Counter> subjects = byStudentSubject.get(studentId);
+        return subjects == null ? Set.of() : subjects.keySet();
+    }
+
+    private void add(AttendanceRecord r, int delta) {
+        add(r.studentId(), r.subjectCode(), r.present(), delta);
+    }
+
+    private void add(String studentId, String subjectCode, boolean present, int delta) {
+        byStudent.computeIfAbsent(studentId, k -> new Counter()).add(present, delta);
+        byStudentSubject.computeIfAbsent(studentId, k -> new HashMap<>())
+                .computeIfAbsent(subjectCode, k -> new Counter())
+                .add(present, delta);
+    }
+
+    private static final class Counter {
+        int present;
+        int total;
+
+        void add(boolean isPresent, int delta) {
+            total += delta;
+            if (isPresent) {
+                present += delta;
+            }
+        }
+
+        double percentage() {
+            return total == 0 ? 0.0 : (present * 100.0) / total;
+        }
+    }
+}
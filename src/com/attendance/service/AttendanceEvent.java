@@ -0,0 +1,56 @@
+package com.attendance.service;
+
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.model.TimetableEntry;
+
+/**
+ * A change published by {@link AttendanceService} to its
+ * {@link AttendanceListener}s, so views can update the affected rows instead
+ * of reloading everything.
+ * Demonstrates: Sealed interfaces, records, pattern matching.
+ */
+public sealed interface AttendanceEvent {
+
+    record StudentAdded(Student student) implements AttendanceEvent {
+    }
+
+    /**
+     * The student and all of their attendance records are gone.
+     */
+    record StudentRemoved(Student student) implements AttendanceEvent {
+    }
+
+    record SubjectAdded(Subject subject) implements AttendanceEvent {
+    }
+
+    /**
+     * The subject is gone; its timetable entries are removed by separate
+     * events, its attendance records are kept.
+     */
+    record SubjectRemoved(Subject subject) implements AttendanceEvent {
+    }
+
+    record TimetableEntryAdded(TimetableEntry entry) implements AttendanceEvent {
+    }
+
+    record TimetableEntryRemoved(TimetableEntry entry) implements AttendanceEvent {
+    }
+
+    /**
+     * One mark was recorded.
+     *
+     * @param replaced the earlier record for the same student, date and slot,
+     *                 or null if the mark is new
+     */
+    record RecordUpserted(AttendanceRecord record, AttendanceRecord replaced) implements AttendanceEvent {
+    }
+
+    /**
+     * Attendance changed in bulk (import, restore, loading older history);
+     * views should reload their records.
+     */
+    record AttendanceReloaded() implements AttendanceEvent {
+    }
+}
@@ -0,0 +1,378 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams attendance records and report rows as CSV or JSON. Attendance rows
+ * are written straight from a scan of the packed store, so no record objects
+ * are created and memory stays bounded by one output buffer however many
+ * rows are exported.
+ * Demonstrates: NIO channels and buffers, CharsetEncoder, streaming output.
+ */
+public class AttendanceExporter {
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Format matching a file name's extension; CSV unless it ends in .json.
+         */
+        public static Format forFileName(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    /**
+     * Restricts an export to records dated within [from, to] and to one
+     * subject; any component may be null for no restriction.
+     */
+    public record Filter(LocalDate from, LocalDate to, String subjectCode) {
+        public static final Filter ALL = new Filter(null, null, null);
+    }
+
+    private final AttendanceService service;
+
+    public AttendanceExporter(AttendanceService service) {
+        this.service = service;
+    }
+
+    // --- Attendance records ---
+
+    /**
+     * Writes one row per attendance record, in date order.
+     *
+     * @return number of records written
+     */
+    public long exportAttendance(Writer out, Format format, Filter filter) throws AttendanceException {
+        return run(new RowWriter(out), w -> writeAttendance(w, format, filter));
+    }
+
+    public long exportAttendance(OutputStream out, Format format, Filter filter) throws AttendanceException {
+        return run(new RowWriter(Channels.newChannel(out)), w -> writeAttendance(w, format, filter));
+    }
+
+    public long exportAttendance(Path file, Format format, Filter filter) throws AttendanceException {
+        try (FileChannel channel = openForWrite(file)) {
+            return run(new RowWriter(channel), w -> writeAttendance(w, format, filter));
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to export to " + file, e);
+        }
+    }
+
+    // --- Reports ---
+
+    /**
+     * Writes one row per student with the overall percentage and one
+     * percentage per subject. With a date range the percentages cover only
+     * that range; a subject filter keeps only that subject's column. The
+     * overall percentage always counts all of a student's records in range,
+     * including subjects that are filtered out or no longer listed.
+     *
+     * @return number of students written
+     */
+    public long exportReport(Writer out, Format format, Filter filter) throws AttendanceException {
+        return run(new RowWriter(out), w -> writeReport(w, format, filter));
+    }
+
+    public long exportReport(OutputStream out, Format format, Filter filter) throws AttendanceException {
+        return run(new RowWriter(Channels.newChannel(out)), w -> writeReport(w, format, filter));
+    }
+
+    public long exportReport(Path file, Format format, Filter filter) throws AttendanceException {
+        try (FileChannel channel = openForWrite(file)) {
+            return run(new RowWriter(channel), w -> writeReport(w, format, filter));
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to export to " + file, e);
+        }
+    }
+
+    // --- Row generation ---
+
+    private long writeAttendance(RowWriter out, Format format, Filter filter) throws IOException {
+        // A frozen snapshot: marks made during a long export do not block or tear it
+        AttendanceStore store = service.getSnapshot().store();
+        int subjectFilter = filter.subjectCode() == null ? -1 : store.subjectIndex(filter.subjectCode());
+        if (format == Format.CSV) {
+            out.append("student_id,subject_code,date,slot,present\n");
+        } else {
+            out.append('[');
+        }
+        if (filter.subjectCode() != null && subjectFilter < 0) {
+            return finish(out, format, 0);
+        }
+
+        long[] count = {0};
+        long[] lastDay = {Long.MIN_VALUE};
+        String[] lastDate = {null};
+        try {
+            store.scan(filter.from(), filter.to(), (student, subject, epochDay, slot, present) -> {
+                if (subjectFilter >= 0 && subject != subjectFilter) {
+                    return;
+                }
+                // Records arrive in date order, so the formatted date is reused
+                if (epochDay != lastDay[0]) {
+                    lastDay[0] = epochDay;
+                    lastDate[0] = LocalDate.ofEpochDay(epochDay).toString();
+                }
+                String studentId = store.studentId(student);
+                String subjectCode = store.subjectCode(subject);
+                if (format == Format.CSV) {
+                    out.csv(studentId).append(',').csv(subjectCode).append(',').append(lastDate[0]).append(',')
+                            .append(slot).append(',').append(present ? "true\n" : "false\n");
+                } else {
+                    out.append(count[0] == 0 ? "\n" : ",\n")
+                            .append("{\"studentId\":").json(studentId)
+                            .append(",\"subjectCode\":").json(subjectCode)
+                            .append(",\"date\":\"").append(lastDate[0])
+                            .append("\",\"slot\":").append(slot)
+                            .append(",\"present\":").append(present ? "true" : "false").append('}');
+                }
+                out.endRowUnchecked();
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return finish(out, format, count[0]);
+    }
+
+    private long writeReport(RowWriter out, Format format, Filter filter) throws IOException {
+        AttendanceReport report = filter.from() == null && filter.to() == null
+                ? service.getReport()
+                : service.getReport(filter.from(), filter.to());
+        SubjectAttendanceMatrix matrix = report.matrix();
+
+        List<Integer> cols = new ArrayList<>();
+        for (int col = 0; col < matrix.subjectCount(); col++) {
+            if (filter.subjectCode() == null || matrix.subject(col).code().equals(filter.subjectCode())) {
+                cols.add(col);
+            }
+        }
+
+        if (format == Format.CSV) {
+            out.append("student_id,name,roll_no,overall_pct");
+            for (int col : cols) {
+                out.append(',').csv(matrix.subject(col).code());
+            }
+            out.append('\n');
+        } else {
+            out.append('[');
+        }
+        for (int row = 0; row < matrix.studentCount(); row++) {
+            Student s = matrix.student(row);
+            if (format == Format.CSV) {
+                out.csv(s.id()).append(',').csv(s.name()).append(',').csv(s.rollNo()).append(',')
+                        .percentage(report.overallPercentage(row));
+                for (int col : cols) {
+                    out.append(',').percentage(matrix.percentage(row, col));
+                }
+                out.append('\n');
+            } else {
+                out.append(row == 0 ? "\n" : ",\n")
+                        .append("{\"studentId\":").json(s.id())
+                        .append(",\"name\":").json(s.name())
+                        .append(",\"rollNo\":").json(s.rollNo())
+                        .append(",\"overall\":").percentage(report.overallPercentage(row))
+                        .append(",\"subjects\":{");
+                for (int i = 0; i < cols.size(); i++) {
+                    Subject subject = matrix.subject(cols.get(i));
+                    out.append(i == 0 ? "" : ",").json(subject.code()).append(':')
+                            .percentage(matrix.percentage(row, cols.get(i)));
+                }
+                out.append("}}");
+            }
+            out.endRow();
+        }
+        return finish(out, format, matrix.studentCount());
+    }
+
+    /**
+     * Closes the JSON array when needed and passes the row count through.
+     */
+    private static long finish(RowWriter out, Format format, long rows) throws IOException {
+        if (format == Format.JSON) {
+            out.append(rows == 0 ? "]\n" : "\n]\n");
+        }
+        return rows;
+    }
+
+    // --- Output plumbing ---
+
+    @FunctionalInterface
+    private interface RowSource {
+        long write(RowWriter out) throws IOException;
+    }
+
+    private static long run(RowWriter out, RowSource source) throws AttendanceException {
+        try {
+            long rows = source.write(out);
+            out.flush();
+            return rows;
+        } catch (IOException e) {
+            throw new AttendanceException("Export failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static FileChannel openForWrite(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Accumulates rows in a fixed-size char buffer and drains it to a Writer,
+     * or encodes it as UTF-8 into a reused byte buffer for a channel, once
+     * it fills up. The underlying Writer or channel is flushed but not closed.
+     */
+    private static final class RowWriter {
+        private final StringBuilder chars = new StringBuilder(BUFFER_CHARS + 1024);
+        private final Writer writer;
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder;
+        private final ByteBuffer bytes;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+            this.channel = null;
+            this.encoder = null;
+            this.bytes = null;
+        }
+
+        RowWriter(WritableByteChannel channel) {
+            this.writer = null;
+            this.channel = channel;
+            this.encoder = StandardCharsets.UTF_8.newEncoder();
+            this.bytes = ByteBuffer.allocateDirect(BUFFER_CHARS);
+        }
+
+        RowWriter append(String s) {
+            chars.append(s);
+            return this;
+        }
+
+        RowWriter append(char c) {
+            chars.append(c);
+            return this;
+        }
+
+        RowWriter append(int i) {
+            chars.append(i);
+            return this;
+        }
+
+        RowWriter percentage(double pct) {
+            // One decimal, independent of the default locale
+            long tenths = Math.round(pct * 10);
+            chars.append(tenths / 10).append('.').append(tenths % 10);
+            return this;
+        }
+
+        RowWriter csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                chars.append(value);
+            } else {
+                chars.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+            return this;
+        }
+
+        RowWriter json(String value) {
+            chars.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> chars.append("\\\"");
+                    case '\\' -> chars.append("\\\\");
+                    case '\n' -> chars.append("\\n");
+                    case '\r' -> chars.append("\\r");
+                    case '\t' -> chars.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            chars.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            chars.append(c);
+                        }
+                    }
+                }
+            }
+            chars.append('"');
+            return this;
+        }
+
+        /**
+         * Marks a row boundary, draining the buffer once it is full.
+         */
+        void endRow() throws IOException {
+            if (chars.length() >= BUFFER_CHARS) {
+                drain();
+            }
+        }
+
+        /**
+         * endRow for use inside store scans, which cannot throw IOException.
+         */
+        void endRowUnchecked() {
+            try {
+                endRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        private void drain() throws IOException {
+            if (writer != null) {
+                writer.append(chars);
+            } else {
+                CharBuffer in = CharBuffer.wrap(chars);
+                encoder.reset();
+                CoderResult result;
+                do {
+                    result = encoder.encode(in, bytes, true);
+                    writeBytes();
+                } while (result.isOverflow());
+                while (encoder.flush(bytes).isOverflow()) {
+                    writeBytes();
+                }
+                writeBytes();
+            }
+            chars.setLength(0);
+        }
+
+        private void writeBytes() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Locale;
+
+/**
+ * On-disk format of the attendance history, chosen at startup with
+ * {@code -Dattendance.format=serialized|columnar|partitioned}. Students,
+ * subjects and the timetable always live in the serialized files. The
+ * single-file formats keep the append-only journal in front so a mark writes
+ * one small entry; the partitioned format rewrites only the marked month.
+ */
+public enum AttendanceFormat {
+    /** attendance.dat, rewritten whenever the journal is folded in. */
+    SERIALIZED,
+    /** attendance.col, dictionary encoded and memory mapped on load. */
+    COLUMNAR,
+    /** One file per month under attendance/; only recent months load at startup. */
+    PARTITIONED;
+
+    public static final String PROPERTY = "attendance.format";
+
+    private static final int RECENT_MONTHS = 3;
+
+    /**
+     * The format named by the {@value #PROPERTY} system property, or
+     * {@link #SERIALIZED} when it is not set.
+     */
+    public static AttendanceFormat fromSystemProperty() throws AttendanceException {
+        String name = System.getProperty(PROPERTY, SERIALIZED.name());
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AttendanceException("Unknown " + PROPERTY + ": " + name);
+        }
+    }
+
+    /**
+     * The DataManager for this format over the files in the working
+     * directory. An existing attendance.dat is picked up by the other
+     * formats and converted on their first save or load.
+     */
+    public DataManager open() {
+        DataManager files = new SerializedDataManager();
+        return switch (this) {
+            case SERIALIZED -> new JournaledDataManager(files);
+            case COLUMNAR -> new JournaledDataManager(new ColumnarDataManager(files));
+            case PARTITIONED -> new PartitionedDataManager(files);
+        };
+    }
+
+    /**
+     * Earliest attendance date a service should load at startup, or null for
+     * the whole history. Older months are pulled in on demand with
+     * {@link AttendanceService#loadHistory}.
+     */
+    public LocalDate historyFrom() {
+        return this == PARTITIONED ? YearMonth.now().minusMonths(RECENT_MONTHS - 1).atDay(1) : null;
+    }
+}
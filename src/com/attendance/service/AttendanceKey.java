@@ -0,0 +1,14 @@
+package com.attendance.service;
+
+import com.attendance.model.AttendanceRecord;
+
+import java.time.LocalDate;
+
+/**
+ * Identity of an attendance record: one mark per student, date and slot.
+ */
+record AttendanceKey(String studentId, LocalDate date, int slotNumber) {
+    static AttendanceKey of(AttendanceRecord r) {
+        return new AttendanceKey(r.studentId(), r.date(), r.slotNumber());
+    }
+}
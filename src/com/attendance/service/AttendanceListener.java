@@ -0,0 +1,23 @@
+package com.attendance.service;
+
+import java.util.List;
+
+/**
+ * Receives the changes made by each write to an {@link AttendanceService}.
+ */
+@FunctionalInterface
+public interface AttendanceListener {
+    /**
+     * Called after the write has published its snapshot and released the
+     * service's locks, usually on the writing thread. Batches are delivered
+     * one at a time in the order the writes happened; a batch whose writer
+     * finds another delivery in progress is delivered by that thread instead.
+     * Listeners may read from or write to the service, but a slow listener
+     * delays the batches queued behind it, so hand lengthy work to another
+     * thread. The service may already reflect later writes whose batches
+     * are still queued.
+     *
+     * @param events the write's changes, in the order they were made
+     */
+    void changed(List<AttendanceEvent> events);
+}
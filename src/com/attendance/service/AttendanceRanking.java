@@ -0,0 +1,116 @@
+package com.attendance.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Students ordered by attendance percentage, overall and per subject. Each
+ * mark re-positions only the affected student, so threshold and top-K reads
+ * are range reads on a sorted set instead of a pass over every student.
+ * Every student is ranked overall; per subject, only students with records
+ * in that subject are.
+ * Demonstrates: TreeSet, NavigableSet range views, Comparator chaining.
+ */
+class AttendanceRanking {
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::percentage).thenComparing(Entry::studentId);
+
+    record Entry(double percentage, String studentId) {
+    }
+
+    private final NavigableSet<Entry> overall = new TreeSet<>(ORDER);
+    private final Map<String, Entry> overallByStudent = new HashMap<>();
+    private final Map<String, NavigableSet<Entry>> bySubject = new HashMap<>();
+    private final Map<String, Map<String, Entry>> byStudentSubject = new HashMap<>();
+
+    AttendanceRanking(Iterable<String> studentIds, AttendanceCounters counters) {
+        for (String studentId : studentIds) {
+            addStudent(studentId, counters);
+            for (String subjectCode : counters.subjectsOf(studentId)) {
+                refreshSubject(studentId, subjectCode, counters);
+            }
+        }
+    }
+
+    void addStudent(String studentId, AttendanceCounters counters) {
+        Entry entry = new Entry(counters.percentage(studentId), studentId);
+        Entry old = overallByStudent.put(studentId, entry);
+        if (old != null) {
+            overall.remove(old);
+        }
+        overall.add(entry);
+    }
+
+    void removeStudent(String studentId) {
+        Entry old = overallByStudent.remove(studentId);
+        if (old != null) {
+            overall.remove(old);
+        }
+        Map<String, Entry> subjects = byStudentSubject.remove(studentId);
+        if (subjects != null) {
+            subjects.forEach((code, entry) -> bySubject.get(code).remove(entry));
+        }
+    }
+
+    /**
+     * Re-positions a ranked student after their records in the subject
+     * changed; unknown (removed) students are ignored.
+     */
+    void refresh(String studentId, String subjectCode, AttendanceCounters counters) {
+        if (!overallByStudent.containsKey(studentId)) {
+            return;
+        }
+        addStudent(studentId, counters);
+        refreshSubject(studentId, subjectCode, counters);
+    }
+
+    private void refreshSubject(String studentId, String subjectCode, AttendanceCounters counters) {
+        Map<String, Entry> subjects = byStudentSubject.computeIfAbsent(studentId, k -> new HashMap<>());
+        NavigableSet<Entry> ranked = bySubject.computeIfAbsent(subjectCode, k -> new TreeSet<>(ORDER));
+        Entry old = subjects.remove(subjectCode);
+        if (old != null) {
+            ranked.remove(old);
+        }
+        if (counters.hasRecords(studentId, subjectCode)) {
+            Entry entry = new Entry(counters.percentage(studentId, subjectCode), studentId);
+            subjects.put(subjectCode, entry);
+            ranked.add(entry);
+        }
+    }
+
+    /**
+     * Students below the threshold, lowest first.
+     */
+    List<Entry> below(double threshold) {
+        // "" sorts before every id, so this excludes exactly the threshold
+        return new ArrayList<>(overall.headSet(new Entry(threshold, ""), false));
+    }
+
+    List<Entry> lowest(int k) {
+        return first(overall.iterator(), k);
+    }
+
+    List<Entry> lowest(String subjectCode, int k) {
+        NavigableSet<Entry> ranked = bySubject.get(subjectCode);
+        return ranked == null ? List.of() : first(ranked.iterator(), k);
+    }
+
+    List<Entry> highest(String subjectCode, int k) {
+        NavigableSet<Entry> ranked = bySubject.get(subjectCode);
+        return ranked == null ? List.of() : first(ranked.descendingIterator(), k);
+    }
+
+    private static List<Entry> first(Iterator<Entry> it, int k) {
+        List<Entry> result = new ArrayList<>(Math.max(0, k));
+        while (it.hasNext() && result.size() < k) {
+            result.add(it.next());
+        }
+        return result;
+    }
+}
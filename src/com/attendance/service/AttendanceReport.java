@@ -0,0 +1,61 @@
+package com.attendance.service;
+
+import com.attendance.model.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the attendance reports as of one service version:
+ * overall percentage per student plus the subject-wise matrix. The service
+ * hands out the same snapshot until a write bumps its version, so repeated
+ * report views and threshold changes cost no recomputation.
+ */
+public final class AttendanceReport {
+    private final long version;
+    private final SubjectAttendanceMatrix matrix;
+    private final double[] overall;
+
+    AttendanceReport(long version, SubjectAttendanceMatrix matrix, double[] overall) {
+        this.version = version;
+        this.matrix = matrix;
+        this.overall = overall;
+    }
+
+    /**
+     * Service version this snapshot was built from.
+     */
+    public long version() {
+        return version;
+    }
+
+    public SubjectAttendanceMatrix matrix() {
+        return matrix;
+    }
+
+    public int studentCount() {
+        return matrix.studentCount();
+    }
+
+    public Student student(int row) {
+        return matrix.student(row);
+    }
+
+    public double overallPercentage(int row) {
+        return overall[row];
+    }
+
+    /**
+     * Rows of the students whose overall percentage is below the threshold,
+     * in student order.
+     */
+    public List<Integer> rowsBelow(double threshold) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < overall.length; row++) {
+            if (overall[row] < threshold) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
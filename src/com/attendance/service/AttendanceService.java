@@ -3,40 +3,130 @@ package com.attendance.service;
 import com.attendance.exception.AttendanceException;
 import com.attendance.exception.DuplicateRecordException;
 import com.attendance.exception.StudentNotFoundException;
+import com.attendance.exception.SubjectNotFoundException;
 import com.attendance.exception.ValidationException;
 import com.attendance.model.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Service class for managing students, subjects, timetable, and attendance.
+ * Safe for concurrent use: writes hold the write lock and publish an
+ * immutable {@link AttendanceSnapshot} when they release it. Marks also lock
+ * a stripe per session and append to the DataManager outside the write
+ * lock, so classes marked at the same time only contend briefly. Lists,
+ * records and reports are read from the current snapshot without locking;
+ * lookups, percentages, trends and rankings share a read lock.
+ * Each mutator has an {@code *Async} variant that applies the change in
+ * memory before returning and hands back a future for its persistence; with
+ * an {@link AsyncDataManager} the save runs in the background, otherwise it
+ * has already completed. Every write also reports what it changed to the
+ * registered {@link AttendanceListener}s as {@link AttendanceEvent}s.
  * Demonstrates: Collections (List, Map, Set), Streams API, lambdas,
- * functional interfaces, method references.
+ * functional interfaces, method references, ReentrantReadWriteLock,
+ * copy-on-write snapshots (MVCC), lock striping, CompletableFuture, Observer
+ * pattern.
  */
-public class AttendanceService {
+public class AttendanceService implements AutoCloseable {
+    // Readers share the lock; writers (and the persistence they trigger) are serialized
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Marks lock their session's stripe first; stripes are always taken before the write lock
+    private final ReentrantLock[] markingStripes = new ReentrantLock[64];
     private final DataManager dataManager;
+    private final AsyncDataManager asyncDataManager; // saves in submission order; the same object when async
     private List<Student> students;
-    private List<AttendanceRecord> attendanceRecords;
+    private final StorageMode storageMode;
+    private AttendanceStore attendance;
+    private AttendanceCounters counters;
+    private AttendanceTrends trends; // built on first trend query, then maintained under the write lock
+    private AttendanceRanking ranking;
+    private LocalDate historyFrom; // earliest loaded attendance date, null when fully loaded
+    private volatile ReportEngine reportEngine = ReportEngine.shared();
+    private long version; // bumped by every mutation
+    private volatile AttendanceSnapshot snapshot; // republished when a write releases the lock
+    private boolean catalogChanged = true; // students, subjects or timetable changed since the last publish
+    private volatile AttendanceReport cachedReport; // null or built at an older version when stale
+    private final List<AttendanceListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<AttendanceEvent> pendingEvents = new ArrayList<>(); // this write's changes, under the write lock
+    // Finished writes' batches, queued under the write lock so they are delivered in write order
+    private final Queue<List<AttendanceEvent>> undeliveredEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean delivering = new AtomicBoolean(); // one thread calls listeners at a time
     private List<Subject> subjects;
     private List<TimeSlot> timeSlots;
     private List<TimetableEntry> timetable;
 
+    // Lookup indexes, kept in step with the lists above
+    private final Map<String, Student> studentsById = new HashMap<>();
+    private final Map<String, Student> studentsByRollNo = new HashMap<>();
+    private final Map<String, Subject> subjectsByCode = new HashMap<>();
+    private final Map<SlotKey, TimetableEntry> timetableBySlot = new HashMap<>();
+
     public AttendanceService(DataManager dataManager) throws AttendanceException {
+        this(dataManager, null);
+    }
+
+    /**
+     * Creates a service that loads attendance only from the given date on;
+     * older history can be pulled in later with {@link #loadHistory}. Until
+     * then percentages and reports cover the loaded window only.
+     *
+     * @param historyFrom earliest attendance date to load, or null for all
+     */
+    public AttendanceService(DataManager dataManager, LocalDate historyFrom) throws AttendanceException {
+        this(dataManager, historyFrom, StorageMode.HEAP);
+    }
+
+    /**
+     * Creates a service whose packed attendance records live in the given
+     * storage; {@link StorageMode#OFF_HEAP} keeps very large histories out of
+     * the garbage-collected heap.
+     */
+    public AttendanceService(DataManager dataManager, LocalDate historyFrom, StorageMode storageMode)
+            throws AttendanceException {
+        if (historyFrom != null && !dataManager.supportsIncrementalAttendance()) {
+            // A full save would silently drop the history that was never loaded
+            throw new AttendanceException(
+                    "Loading a partial history requires a DataManager with incremental attendance persistence");
+        }
         this.dataManager = dataManager;
+        this.asyncDataManager = dataManager instanceof AsyncDataManager async
+                ? async
+                : AsyncDataManagerAdapter.inline(dataManager);
+        this.storageMode = storageMode;
+        Arrays.setAll(markingStripes, i -> new ReentrantLock());
+        this.historyFrom = historyFrom;
         this.students = new ArrayList<>(dataManager.loadStudents());
-        this.attendanceRecords = new ArrayList<>(dataManager.loadAttendance());
+        this.attendance = new AttendanceStore(historyFrom == null
+                ? dataManager.loadAttendance()
+                : dataManager.loadAttendance(historyFrom, null), storageMode);
+        this.counters = new AttendanceCounters(attendance);
         this.subjects = new ArrayList<>(dataManager.loadSubjects());
         this.timeSlots = new ArrayList<>(dataManager.loadTimeSlots());
         this.timetable = new ArrayList<>(dataManager.loadTimetable());
 
+        students.forEach(this::indexStudent);
+        subjects.forEach(s -> subjectsByCode.put(s.code(), s));
+        timetable.forEach(t -> timetableBySlot.put(SlotKey.of(t), t));
+        ranking = new AttendanceRanking(studentsById.keySet(), counters);
+
         // Initialize default time slots if empty
         if (timeSlots.isEmpty()) {
             initDefaultTimeSlots();
         }
+        publish();
     }
 
     private void initDefaultTimeSlots() throws AttendanceException {
@@ -52,15 +142,48 @@ public class AttendanceService {
     // --- Student Operations ---
 
     public void addStudent(Student student) throws AttendanceException {
-        validateStudent(student);
+        AsyncDataManagerAdapter.await(addStudentAsync(student));
+    }
 
-        boolean exists = students.stream()
-                .anyMatch(s -> s.id().equals(student.id()) || s.rollNo().equals(student.rollNo()));
-        if (exists) {
-            throw new DuplicateRecordException("Student with same ID or Roll No already exists");
+    /**
+     * Adds a student in memory and queues the save. Invalid or duplicate
+     * students are rejected here; the future completes once the save has.
+     */
+    public CompletableFuture<Void> addStudentAsync(Student student) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            applyStudent(student);
+            return asyncDataManager.saveStudentsAsync(students);
+        } finally {
+            unlockWrite();
         }
-        students.add(student);
-        dataManager.saveStudents(students);
+    }
+
+    /**
+     * Validates and adds a student without persisting it.
+     */
+    void applyStudent(Student student) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            validateStudent(student);
+
+            boolean exists = studentsById.containsKey(student.id()) || studentsByRollNo.containsKey(student.rollNo());
+            if (exists) {
+                throw new DuplicateRecordException("Student with same ID or Roll No already exists");
+            }
+            students.add(student);
+            indexStudent(student);
+            ranking.addStudent(student.id(), counters);
+            changed();
+            emit(new AttendanceEvent.StudentAdded(student));
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    private void indexStudent(Student s) {
+        studentsById.put(s.id(), s);
+        studentsByRollNo.put(s.rollNo(), s);
     }
 
     private void validateStudent(Student s) throws ValidationException {
@@ -78,88 +201,211 @@ public class AttendanceService {
     }
 
     public void removeStudent(String studentId) throws AttendanceException {
-        boolean removed = students.removeIf(s -> s.id().equals(studentId));
-        if (!removed) {
-            throw new StudentNotFoundException(studentId);
+        AsyncDataManagerAdapter.await(removeStudentAsync(studentId));
+    }
+
+    /**
+     * Removes a student and their attendance in memory and queues the saves.
+     */
+    public CompletableFuture<Void> removeStudentAsync(String studentId) throws AttendanceException {
+        lockAllStripes();
+        try {
+            lock.writeLock().lock();
+            try {
+                Student removed = studentsById.remove(studentId);
+                if (removed == null) {
+                    throw new StudentNotFoundException(studentId);
+                }
+                studentsByRollNo.remove(removed.rollNo());
+                students.remove(removed);
+                if (trends != null) {
+                    trends.removeStudent(studentId, attendance.studentBetween(studentId, null, null));
+                }
+                attendance.removeStudent(studentId);
+                counters.removeStudent(studentId);
+                ranking.removeStudent(studentId);
+                changed();
+                emit(new AttendanceEvent.StudentRemoved(removed));
+                CompletableFuture<Void> studentsSaved = asyncDataManager.saveStudentsAsync(students);
+                CompletableFuture<Void> attendanceSaved = asyncDataManager.supportsIncrementalAttendance()
+                        ? asyncDataManager.deleteAttendanceForStudentAsync(studentId)
+                        : asyncDataManager.saveAttendanceAsync(attendance.asList());
+                return CompletableFuture.allOf(studentsSaved, attendanceSaved);
+            } finally {
+                unlockWrite();
+            }
+        } finally {
+            unlockAllStripes();
         }
-        attendanceRecords.removeIf(r -> r.studentId().equals(studentId));
-        dataManager.saveStudents(students);
-        dataManager.saveAttendance(attendanceRecords);
     }
 
     public Student findStudentById(String studentId) throws StudentNotFoundException {
-        return students.stream()
-                .filter(s -> s.id().equals(studentId))
-                .findFirst()
-                .orElseThrow(() -> new StudentNotFoundException(studentId));
+        lock.readLock().lock();
+        try {
+            Student student = studentsById.get(studentId);
+            if (student == null) {
+                throw new StudentNotFoundException(studentId);
+            }
+            return student;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public List<Student> getAllStudents() {
-        return Collections.unmodifiableList(students);
+        return snapshot.students();
     }
 
     // --- Subject Operations ---
 
     public void addSubject(Subject subject) throws AttendanceException {
-        if (subject.code() == null || subject.code().trim().isEmpty())
-            throw new ValidationException("Subject Code cannot be empty");
-        if (subject.name() == null || subject.name().trim().isEmpty())
-            throw new ValidationException("Subject Name cannot be empty");
+        AsyncDataManagerAdapter.await(addSubjectAsync(subject));
+    }
 
-        boolean exists = subjects.stream().anyMatch(s -> s.code().equals(subject.code()));
-        if (exists) {
-            throw new DuplicateRecordException("Subject with code " + subject.code() + " already exists");
+    public CompletableFuture<Void> addSubjectAsync(Subject subject) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            applySubject(subject);
+            return asyncDataManager.saveSubjectsAsync(subjects);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Validates and adds a subject without persisting it.
+     */
+    void applySubject(Subject subject) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            if (subject.code() == null || subject.code().trim().isEmpty())
+                throw new ValidationException("Subject Code cannot be empty");
+            if (subject.name() == null || subject.name().trim().isEmpty())
+                throw new ValidationException("Subject Name cannot be empty");
+
+            if (subjectsByCode.containsKey(subject.code())) {
+                throw new DuplicateRecordException("Subject with code " + subject.code() + " already exists");
+            }
+            subjects.add(subject);
+            subjectsByCode.put(subject.code(), subject);
+            changed();
+            emit(new AttendanceEvent.SubjectAdded(subject));
+        } finally {
+            unlockWrite();
         }
-        subjects.add(subject);
-        dataManager.saveSubjects(subjects);
     }
 
     public void removeSubject(String subjectCode) throws AttendanceException {
-        subjects.removeIf(s -> s.code().equals(subjectCode));
-        timetable.removeIf(t -> t.subjectCode().equals(subjectCode));
-        dataManager.saveSubjects(subjects);
-        dataManager.saveTimetable(timetable);
+        AsyncDataManagerAdapter.await(removeSubjectAsync(subjectCode));
+    }
+
+    /**
+     * Removes a subject and its timetable entries in memory and queues the
+     * saves.
+     */
+    public CompletableFuture<Void> removeSubjectAsync(String subjectCode) {
+        lock.writeLock().lock();
+        try {
+            Subject removed = subjectsByCode.remove(subjectCode);
+            if (removed != null) {
+                subjects.remove(removed);
+                emit(new AttendanceEvent.SubjectRemoved(removed));
+            }
+            for (TimetableEntry t : timetable) {
+                if (t.subjectCode().equals(subjectCode)) {
+                    emit(new AttendanceEvent.TimetableEntryRemoved(t));
+                }
+            }
+            timetable.removeIf(t -> t.subjectCode().equals(subjectCode));
+            timetableBySlot.values().removeIf(t -> t.subjectCode().equals(subjectCode));
+            changed();
+            return CompletableFuture.allOf(asyncDataManager.saveSubjectsAsync(subjects),
+                    asyncDataManager.saveTimetableAsync(timetable));
+        } finally {
+            unlockWrite();
+        }
     }
 
     public List<Subject> getAllSubjects() {
-        return Collections.unmodifiableList(subjects);
+        return snapshot.subjects();
     }
 
     public Optional<Subject> findSubjectByCode(String code) {
-        return subjects.stream().filter(s -> s.code().equals(code)).findFirst();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(subjectsByCode.get(code));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     // --- Time Slot Operations ---
 
     public List<TimeSlot> getAllTimeSlots() {
-        return Collections.unmodifiableList(timeSlots);
+        return snapshot.timeSlots();
     }
 
     // --- Timetable Operations ---
 
     public void addTimetableEntry(TimetableEntry entry) throws AttendanceException {
-        // Check for conflict (same day and slot)
-        boolean conflict = timetable.stream()
-                .anyMatch(t -> t.day().equals(entry.day()) && t.slotNumber() == entry.slotNumber());
-        if (conflict) {
-            throw new DuplicateRecordException(
-                    "Timetable slot already occupied for " + entry.day() + " slot " + entry.slotNumber());
+        AsyncDataManagerAdapter.await(addTimetableEntryAsync(entry));
+    }
+
+    public CompletableFuture<Void> addTimetableEntryAsync(TimetableEntry entry) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            applyTimetableEntry(entry);
+            return asyncDataManager.saveTimetableAsync(timetable);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Adds a timetable entry without persisting it.
+     */
+    void applyTimetableEntry(TimetableEntry entry) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            // Check for conflict (same day and slot)
+            if (timetableBySlot.containsKey(SlotKey.of(entry))) {
+                throw new DuplicateRecordException(
+                        "Timetable slot already occupied for " + entry.day() + " slot " + entry.slotNumber());
+            }
+            timetable.add(entry);
+            timetableBySlot.put(SlotKey.of(entry), entry);
+            changed();
+            emit(new AttendanceEvent.TimetableEntryAdded(entry));
+        } finally {
+            unlockWrite();
         }
-        timetable.add(entry);
-        dataManager.saveTimetable(timetable);
     }
 
     public void removeTimetableEntry(DayOfWeek day, int slotNumber) throws AttendanceException {
-        timetable.removeIf(t -> t.day().equals(day) && t.slotNumber() == slotNumber);
-        dataManager.saveTimetable(timetable);
+        AsyncDataManagerAdapter.await(removeTimetableEntryAsync(day, slotNumber));
+    }
+
+    public CompletableFuture<Void> removeTimetableEntryAsync(DayOfWeek day, int slotNumber) {
+        lock.writeLock().lock();
+        try {
+            TimetableEntry removed = timetableBySlot.remove(new SlotKey(day, slotNumber));
+            if (removed != null) {
+                timetable.remove(removed);
+                changed();
+                emit(new AttendanceEvent.TimetableEntryRemoved(removed));
+            }
+            return asyncDataManager.saveTimetableAsync(timetable);
+        } finally {
+            unlockWrite();
+        }
     }
 
     public List<TimetableEntry> getTimetable() {
-        return Collections.unmodifiableList(timetable);
+        return snapshot.timetable();
     }
 
     public List<TimetableEntry> getTimetableForDay(DayOfWeek day) {
-        return timetable.stream()
+        return snapshot.timetable().stream()
                 .filter(t -> t.day().equals(day))
                 .sorted(Comparator.comparingInt(TimetableEntry::slotNumber))
                 .collect(Collectors.toList());
@@ -169,13 +415,242 @@ public class AttendanceService {
 
     public void markAttendance(String studentId, String subjectCode, LocalDate date, int slotNumber, boolean present)
             throws AttendanceException {
-        findStudentById(studentId);
+        AsyncDataManagerAdapter.await(markAttendanceAsync(studentId, subjectCode, date, slotNumber, present));
+    }
+
+    /**
+     * Records a mark in memory and queues its save. Invalid marks are
+     * rejected here; the future completes once the mark is persisted.
+     */
+    public CompletableFuture<Void> markAttendanceAsync(String studentId, String subjectCode, LocalDate date,
+            int slotNumber, boolean present) throws AttendanceException {
+        return markSession(date, slotNumber, upserts -> {
+            AttendanceRecord record = validateMark(studentId, subjectCode, date, slotNumber, present);
+
+            // Replace any existing record for the same student, date and slot (corrections)
+            track(attendance.upsert(record), record);
+            upserts.add(record);
+            return null;
+        });
+    }
+
+    /**
+     * Marks a whole session at once. The timetable slot is validated once and
+     * all marks are persisted together; unknown students are reported in the
+     * result instead of aborting the batch.
+     *
+     * @param marks present flag per student id
+     */
+    public BatchMarkResult markAttendanceBatch(String subjectCode, LocalDate date, int slotNumber,
+            Map<String, Boolean> marks) throws AttendanceException {
+        return AsyncDataManagerAdapter.await(markAttendanceBatchAsync(subjectCode, date, slotNumber, marks));
+    }
+
+    /**
+     * Records a session's marks in memory and queues their save; the future
+     * completes with the result once they are persisted.
+     */
+    public CompletableFuture<BatchMarkResult> markAttendanceBatchAsync(String subjectCode, LocalDate date,
+            int slotNumber, Map<String, Boolean> marks) throws AttendanceException {
+        return markSession(date, slotNumber, upserts -> {
+            validateAgainstTimetable(subjectCode, date, slotNumber);
+
+            Map<String, String> failures = new LinkedHashMap<>();
+            for (Map.Entry<String, Boolean> mark : marks.entrySet()) {
+                String studentId = mark.getKey();
+                if (mark.getValue() == null) {
+                    failures.put(studentId, "No attendance status given");
+                } else if (!studentsById.containsKey(studentId)) {
+                    failures.put(studentId, new StudentNotFoundException(studentId).getMessage());
+                } else {
+                    AttendanceRecord record = new AttendanceRecord(studentId, subjectCode, date, slotNumber,
+                            mark.getValue());
+                    track(attendance.upsert(record), record);
+                    upserts.add(record);
+                }
+            }
+            return new BatchMarkResult(upserts.size(), failures);
+        });
+    }
+
+    @FunctionalInterface
+    private interface SessionUpdate<T> {
+        /**
+         * Applies marks in memory, adding every upserted record to the list.
+         */
+        T apply(List<AttendanceRecord> upserts) throws AttendanceException;
+    }
+
+    /**
+     * Runs marks for one session (date and slot) under that session's stripe.
+     * The in-memory update holds the write lock only briefly; the append to
+     * the DataManager is issued after it is released but still under the
+     * stripe, so marks for other sessions proceed in parallel while
+     * corrections to the same record reach storage in the order they were
+     * applied. A DataManager that can only rewrite the whole history is
+     * saved under the write lock instead.
+     *
+     * @return the update's result, once the marks are persisted
+     */
+    private <T> CompletableFuture<T> markSession(LocalDate date, int slotNumber, SessionUpdate<T> update)
+            throws AttendanceException {
+        ReentrantLock stripe = stripeFor(date, slotNumber);
+        stripe.lock();
+        try {
+            List<AttendanceRecord> upserts = new ArrayList<>();
+            boolean append = asyncDataManager.supportsIncrementalAttendance();
+            CompletableFuture<Void> saved = null;
+            T result;
+            lock.writeLock().lock();
+            try {
+                result = update.apply(upserts);
+                if (!upserts.isEmpty()) {
+                    attendanceChanged();
+                    if (!append) {
+                        saved = asyncDataManager.saveAttendanceAsync(attendance.asList());
+                    }
+                }
+            } finally {
+                unlockWrite();
+            }
+            if (append && !upserts.isEmpty()) {
+                saved = asyncDataManager.appendAttendanceAsync(upserts);
+            }
+            return saved == null ? CompletableFuture.completedFuture(result) : saved.thenApply(v -> result);
+        } finally {
+            stripe.unlock();
+            deliverEventsIfUnlocked();
+        }
+    }
+
+    private ReentrantLock stripeFor(LocalDate date, int slotNumber) {
+        // A null date is rejected by validation, which runs under the stripe
+        int h = Long.hashCode((date == null ? 0 : date.toEpochDay()) * 31 + slotNumber);
+        return markingStripes[(h ^ (h >>> 16)) & (markingStripes.length - 1)];
+    }
 
-        // Validate against Timetable
+    /**
+     * Waits for every in-flight mark to issue its append. Operations that
+     * delete or replace records hold all stripes, so no append of an older
+     * mark can be ordered after their own write and resurrect a record.
+     */
+    private void lockAllStripes() {
+        for (ReentrantLock stripe : markingStripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = markingStripes.length - 1; i >= 0; i--) {
+            markingStripes[i].unlock();
+        }
+        deliverEventsIfUnlocked();
+    }
+
+    /**
+     * Applies the checks of {@link #markAttendance} without recording
+     * anything.
+     */
+    AttendanceRecord validateMark(String studentId, String subjectCode, LocalDate date, int slotNumber,
+            boolean present) throws AttendanceException {
+        lock.readLock().lock();
+        try {
+            findStudentById(studentId);
+            validateAgainstTimetable(subjectCode, date, slotNumber);
+            return new AttendanceRecord(studentId, subjectCode, date, slotNumber, present);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Upserts validated records with one sort-and-merge, the last record for
+     * a key winning, and queues their save. Every marking stripe is held with
+     * the write lock, as in {@link #restoreAttendance}, so the save is ordered
+     * against concurrent marks and removals exactly as the change is in
+     * memory. Records of students removed since they were validated are
+     * dropped. With {@code rewrite} the whole history is saved instead of
+     * appending, unless only part of it is loaded.
+     */
+    CompletableFuture<Void> importMarksAsync(List<AttendanceRecord> records, boolean rewrite) {
+        lockAllStripes();
+        try {
+            lock.writeLock().lock();
+            try {
+                List<AttendanceRecord> known = records.stream()
+                        .filter(r -> studentsById.containsKey(r.studentId()))
+                        .toList();
+                if (known.isEmpty()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                track(attendance.upsertAll(known), known);
+                attendanceChanged();
+                return (rewrite && historyFrom == null) || !asyncDataManager.supportsIncrementalAttendance()
+                        ? asyncDataManager.saveAttendanceAsync(attendance.asList())
+                        : asyncDataManager.appendAttendanceAsync(known);
+            } finally {
+                unlockWrite();
+            }
+        } finally {
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * Keeps the derived counts in step with one upsert.
+     */
+    private void track(AttendanceRecord replaced, AttendanceRecord record) {
+        emit(new AttendanceEvent.RecordUpserted(record, replaced));
+        counters.update(replaced, record);
+        if (trends != null) {
+            trends.update(replaced, record);
+        }
+        if (replaced != null && !replaced.subjectCode().equals(record.subjectCode())) {
+            ranking.refresh(replaced.studentId(), replaced.subjectCode(), counters);
+        }
+        ranking.refresh(record.studentId(), record.subjectCode(), counters);
+    }
+
+    /**
+     * Keeps the derived counts in step with a bulk upsert.
+     */
+    private void track(List<AttendanceRecord> removed, Collection<AttendanceRecord> added) {
+        emit(new AttendanceEvent.AttendanceReloaded());
+        removed.forEach(counters::remove);
+        added.forEach(r -> counters.update(null, r));
+        if (trends != null) {
+            removed.forEach(trends::remove);
+            added.forEach(r -> trends.update(null, r));
+        }
+        Set<StudentSubject> touched = new HashSet<>();
+        removed.forEach(r -> touched.add(StudentSubject.of(r)));
+        added.forEach(r -> touched.add(StudentSubject.of(r)));
+        touched.forEach(key -> ranking.refresh(key.studentId(), key.subjectCode(), counters));
+    }
+
+    /**
+     * Checks that the mark's fields can be stored and name a known subject,
+     * then that the slot is not scheduled for a different subject.
+     */
+    private void validateAgainstTimetable(String subjectCode, LocalDate date, int slotNumber)
+            throws AttendanceException {
+        if (subjectCode == null || subjectCode.isBlank()) {
+            throw new ValidationException("Subject Code cannot be empty");
+        }
+        if (!subjectsByCode.containsKey(subjectCode)) {
+            throw new SubjectNotFoundException(subjectCode);
+        }
+        if (date == null) {
+            throw new ValidationException("Date cannot be empty");
+        }
+        if (!AttendanceStore.supportsDate(date)) {
+            throw new ValidationException("Date out of supported range: " + date);
+        }
+        if (slotNumber < 0 || slotNumber > AttendanceStore.MAX_SLOT) {
+            throw new ValidationException("Invalid slot number: " + slotNumber);
+        }
         DayOfWeek day = date.getDayOfWeek();
-        Optional<TimetableEntry> scheduledClass = timetable.stream()
-                .filter(t -> t.day().equals(day) && t.slotNumber() == slotNumber)
-                .findFirst();
+        Optional<TimetableEntry> scheduledClass = Optional.ofNullable(timetableBySlot.get(new SlotKey(day, slotNumber)));
 
         if (scheduledClass.isPresent()) {
             String scheduledSubject = scheduledClass.get().subjectCode();
@@ -188,79 +663,599 @@ public class AttendanceService {
                                 slotNumber, day, scheduledName, selectedName));
             }
         }
+    }
+
+    // Catalog saves for imports that applied rows under writeAtomically; queued, not awaited, under the lock
+
+    CompletableFuture<Void> persistStudentsAsync() {
+        lock.writeLock().lock();
+        try {
+            return asyncDataManager.saveStudentsAsync(students);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    CompletableFuture<Void> persistSubjectsAsync() {
+        lock.writeLock().lock();
+        try {
+            return asyncDataManager.saveSubjectsAsync(subjects);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    CompletableFuture<Void> persistTimetableAsync() {
+        lock.writeLock().lock();
+        try {
+            return asyncDataManager.saveTimetableAsync(timetable);
+        } finally {
+            unlockWrite();
+        }
+    }
 
-        // Check for duplicate record
-        // Remove existing record if present (allow overwrite/update for corrections)
-        attendanceRecords.removeIf(r -> r.studentId().equals(studentId)
-                && r.date().equals(date)
-                && r.slotNumber() == slotNumber);
+    /**
+     * Extends the loaded attendance window back to the given date, reading
+     * only the records that are not in memory yet.
+     *
+     * @param from new earliest loaded date, or null to load the whole history
+     */
+    public void loadHistory(LocalDate from) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            if (historyFrom == null || (from != null && !from.isBefore(historyFrom))) {
+                return;
+            }
+            List<AttendanceRecord> older = dataManager.loadAttendance(from, historyFrom.minusDays(1));
+            track(attendance.upsertAll(older), older);
+            historyFrom = from;
+            attendanceChanged();
+        } finally {
+            unlockWrite();
+        }
+    }
 
-        attendanceRecords.add(new AttendanceRecord(studentId, subjectCode, date, slotNumber, present));
-        dataManager.saveAttendance(attendanceRecords);
+    /**
+     * Earliest date of the loaded attendance window, or empty when the whole
+     * history is in memory.
+     */
+    public Optional<LocalDate> getHistoryLoadedFrom() {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(historyFrom);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public List<AttendanceRecord> getAttendanceByStudent(String studentId) {
-        return attendanceRecords.stream()
-                .filter(r -> r.studentId().equals(studentId))
-                .collect(Collectors.toList());
+        return snapshot.attendanceOfStudent(studentId, null, null);
+    }
+
+    /**
+     * A student's records dated within [from, to], oldest first; either bound
+     * may be null for an open range.
+     */
+    public List<AttendanceRecord> getAttendanceByStudentBetween(String studentId, LocalDate from, LocalDate to) {
+        return snapshot.attendanceOfStudent(studentId, from, to);
     }
 
     public List<AttendanceRecord> getAttendanceBySubject(String subjectCode) {
-        return attendanceRecords.stream()
-                .filter(r -> r.subjectCode().equals(subjectCode))
-                .collect(Collectors.toList());
+        return snapshot.attendanceOfSubject(subjectCode);
     }
 
     public List<AttendanceRecord> getAttendanceByDate(LocalDate date) {
-        return attendanceRecords.stream()
-                .filter(r -> r.date().equals(date))
-                .collect(Collectors.toList());
+        return snapshot.attendanceBetween(date, date);
+    }
+
+    /**
+     * Records dated within [from, to], oldest first; either bound may be null
+     * for an open range. Only the records in range are touched.
+     */
+    public List<AttendanceRecord> getAttendanceBetween(LocalDate from, LocalDate to) {
+        return snapshot.attendanceBetween(from, to);
+    }
+
+    /**
+     * Read-only view of every record, newest date first.
+     */
+    public Collection<AttendanceRecord> getAttendanceNewestFirst() {
+        return snapshot.attendanceNewestFirst();
     }
 
     public List<AttendanceRecord> getAllAttendance() {
-        return Collections.unmodifiableList(attendanceRecords);
+        return snapshot.attendance();
+    }
+
+    /**
+     * Writes the packed attendance store (dictionaries and raw segments) to a
+     * binary checkpoint file for fast restarts or backups.
+     */
+    public void checkpointAttendance(Path file) throws AttendanceException {
+        try {
+            snapshot.store().writeTo(file);
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to write checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Replaces all attendance with the contents of a checkpoint and saves it
+     * through the DataManager. The save is queued with the other writes'
+     * saves under the locks, so it lands in order, and awaited after them.
+     */
+    public void restoreAttendance(Path file) throws AttendanceException {
+        CompletableFuture<Void> saved;
+        lockAllStripes();
+        try {
+            lock.writeLock().lock();
+            try {
+                AttendanceStore restored;
+                try {
+                    restored = AttendanceStore.readFrom(file, storageMode);
+                } catch (IOException e) {
+                    throw new AttendanceException("Failed to read checkpoint " + file, e);
+                }
+                attendance = restored;
+                counters = new AttendanceCounters(restored);
+                trends = null;
+                ranking = new AttendanceRanking(studentsById.keySet(), counters);
+                historyFrom = null;
+                attendanceChanged();
+                emit(new AttendanceEvent.AttendanceReloaded());
+                saved = asyncDataManager.saveAttendanceAsync(attendance.asList());
+            } finally {
+                unlockWrite();
+            }
+        } finally {
+            unlockAllStripes();
+        }
+        AsyncDataManagerAdapter.await(saved);
     }
 
-    // --- Reporting with Streams ---
+    // --- Reporting (percentages come from incrementally maintained counters) ---
 
     public double getAttendancePercentage(String studentId) {
-        List<AttendanceRecord> records = getAttendanceByStudent(studentId);
-        if (records.isEmpty())
-            return 0.0;
-        long presentCount = records.stream().filter(AttendanceRecord::present).count();
-        return (presentCount * 100.0) / records.size();
+        lock.readLock().lock();
+        try {
+            return counters.percentage(studentId);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public double getAttendancePercentageBySubject(String studentId, String subjectCode) {
-        List<AttendanceRecord> records = attendanceRecords.stream()
-                .filter(r -> r.studentId().equals(studentId) && r.subjectCode().equals(subjectCode))
-                .collect(Collectors.toList());
-        if (records.isEmpty())
-            return 0.0;
-        long presentCount = records.stream().filter(AttendanceRecord::present).count();
-        return (presentCount * 100.0) / records.size();
+        lock.readLock().lock();
+        try {
+            return counters.percentage(studentId, subjectCode);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Map<String, Double> getAllAttendancePercentages() {
-        return students.stream()
-                .collect(Collectors.toMap(Student::id, s -> getAttendancePercentage(s.id())));
+        lock.readLock().lock();
+        try {
+            return students.stream()
+                    .collect(Collectors.toMap(Student::id, s -> getAttendancePercentage(s.id())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Student x subject counts aggregated in one pass over the records, split
+     * across the report engine's worker threads for large histories.
+     */
+    public SubjectAttendanceMatrix getSubjectAttendanceMatrix() {
+        AttendanceSnapshot snap = snapshot;
+        return reportEngine.subjectMatrix(snap.students(), snap.subjects(), snap.store());
+    }
+
+    /**
+     * Sets how many threads report aggregation may use, and the record count
+     * below which it stays on the calling thread. A parallelism of 1 always
+     * aggregates sequentially; any value other than the common pool's starts
+     * a dedicated pool that lives until it is replaced or {@link #close}.
+     */
+    public void setReportParallelism(int parallelism, int sequentialThreshold) {
+        lock.writeLock().lock();
+        try {
+            ReportEngine previous = reportEngine;
+            reportEngine = new ReportEngine(parallelism, sequentialThreshold);
+            previous.shutdown();
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Releases the report thread pool, if the service started one; later
+     * reports aggregate on the common pool. The DataManager is left open for
+     * its owner to close.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            ReportEngine previous = reportEngine;
+            reportEngine = ReportEngine.shared();
+            previous.shutdown();
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Current report snapshot, built from the data snapshot without locking.
+     * It is rebuilt only when a write has happened since the last call;
+     * otherwise the cached snapshot is returned as is.
+     */
+    public AttendanceReport getReport() {
+        AttendanceSnapshot snap = snapshot;
+        AttendanceReport report = cachedReport;
+        if (report == null || report.version() != snap.version()) {
+            report = reportEngine.report(snap.version(), snap.students(), snap.subjects(), snap.store());
+            cachedReport = report;
+        }
+        return report;
+    }
+
+    /**
+     * Counter bumped by every mutating operation, as of the last published
+     * snapshot; equal versions mean equal data.
+     */
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    private void changed() {
+        catalogChanged = true;
+        attendanceChanged();
+    }
+
+    // Records only: the next snapshot can reuse the current lists
+    private void attendanceChanged() {
+        version++;
+        cachedReport = null;
+    }
+
+    /**
+     * Releases the write lock. The outermost release publishes a new
+     * snapshot if anything changed and then notifies listeners, so nested
+     * writes publish and notify once.
+     */
+    private void unlockWrite() {
+        try {
+            if (lock.getWriteHoldCount() == 1) {
+                if (version != snapshot.version()) {
+                    publish();
+                }
+                if (!pendingEvents.isEmpty()) {
+                    undeliveredEvents.add(List.copyOf(pendingEvents));
+                    pendingEvents.clear();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliverEventsIfUnlocked();
+    }
+
+    // Only collected while someone is listening
+    private void emit(AttendanceEvent event) {
+        if (!listeners.isEmpty()) {
+            pendingEvents.add(event);
+        }
+    }
+
+    /**
+     * Calls the listeners with every queued batch once this thread holds none
+     * of the service's locks, so a slow or re-entrant listener cannot stall
+     * other readers and writers or deadlock against the lock order. If
+     * another thread is already delivering, it picks up this thread's batches
+     * in order.
+     */
+    private void deliverEventsIfUnlocked() {
+        if (undeliveredEvents.isEmpty() || lock.getWriteHoldCount() > 0 || lock.getReadHoldCount() > 0) {
+            return;
+        }
+        for (ReentrantLock stripe : markingStripes) {
+            if (stripe.isHeldByCurrentThread()) {
+                return;
+            }
+        }
+        // Re-check after releasing the flag: a batch queued meanwhile may have found it taken
+        while (!undeliveredEvents.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                for (List<AttendanceEvent> events; (events = undeliveredEvents.poll()) != null; ) {
+                    fireEvents(events);
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+
+    private void fireEvents(List<AttendanceEvent> events) {
+        for (AttendanceListener listener : listeners) {
+            try {
+                listener.changed(events);
+            } catch (RuntimeException e) {
+                // The write has happened; a failing listener must not undo or hide it
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, e);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener for the changes made by later writes.
+     */
+    public void addAttendanceListener(AttendanceListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeAttendanceListener(AttendanceListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish() {
+        AttendanceSnapshot previous = snapshot;
+        boolean reuse = previous != null && !catalogChanged;
+        snapshot = new AttendanceSnapshot(version,
+                reuse ? previous.students() : List.copyOf(students),
+                reuse ? previous.subjects() : List.copyOf(subjects),
+                reuse ? previous.timeSlots() : List.copyOf(timeSlots),
+                reuse ? previous.timetable() : List.copyOf(timetable),
+                attendance.snapshot());
+        catalogChanged = false;
+    }
+
+    /**
+     * The data as of the last completed write; never blocks.
+     */
+    public AttendanceSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @FunctionalInterface
+    interface Update<T> {
+        T run() throws AttendanceException;
+    }
+
+    /**
+     * Runs several package-internal writes under one hold of the write lock,
+     * so readers see all of them in a single new snapshot or none.
+     */
+    <T> T writeAtomically(Update<T> update) throws AttendanceException {
+        lock.writeLock().lock();
+        try {
+            return update.run();
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Subject-wise matrix over the records dated within [from, to] only;
+     * either bound may be null. Not cached.
+     */
+    public SubjectAttendanceMatrix getSubjectAttendanceMatrix(LocalDate from, LocalDate to) {
+        AttendanceSnapshot snap = snapshot;
+        AttendanceStore store = snap.store();
+        return reportEngine.subjectMatrix(snap.students(), snap.subjects(), store,
+                store.startOf(from), Math.max(store.startOf(from), store.endOf(to)));
+    }
+
+    /**
+     * The report restricted to records dated within [from, to]; either bound
+     * may be null. Overall percentages count every record in the range, as
+     * {@link #getReport} does for the whole history. Not cached.
+     */
+    public AttendanceReport getReport(LocalDate from, LocalDate to) {
+        AttendanceSnapshot snap = snapshot;
+        AttendanceStore store = snap.store();
+        return reportEngine.report(snap.version(), snap.students(), snap.subjects(), store,
+                store.startOf(from), Math.max(store.startOf(from), store.endOf(to)));
+    }
+
+    // --- Trends (rolling windows answered from per-day prefix sums) ---
+
+    /**
+     * A student's attendance over the {@code days} days ending on {@code end}.
+     */
+    public TrendWindow getStudentTrend(String studentId, LocalDate end, int days) {
+        return readTrends(t -> t.studentWindow(studentId, windowStart(end, days), end));
+    }
+
+    /**
+     * A subject's attendance, over all students, for the {@code days} days
+     * ending on {@code end}.
+     */
+    public TrendWindow getSubjectTrend(String subjectCode, LocalDate end, int days) {
+        return readTrends(t -> t.subjectWindow(subjectCode, windowStart(end, days), end));
+    }
+
+    /**
+     * Rolling {@code days}-day windows ending on each date from {@code from}
+     * to {@code to}.
+     */
+    public List<TrendWindow> getStudentTrendSeries(String studentId, LocalDate from, LocalDate to, int days) {
+        return readTrends(t -> {
+            List<TrendWindow> series = new ArrayList<>();
+            for (LocalDate end = from; !end.isAfter(to); end = end.plusDays(1)) {
+                series.add(t.studentWindow(studentId, windowStart(end, days), end));
+            }
+            return series;
+        });
+    }
+
+    public List<TrendWindow> getSubjectTrendSeries(String subjectCode, LocalDate from, LocalDate to, int days) {
+        return readTrends(t -> {
+            List<TrendWindow> series = new ArrayList<>();
+            for (LocalDate end = from; !end.isAfter(to); end = end.plusDays(1)) {
+                series.add(t.subjectWindow(subjectCode, windowStart(end, days), end));
+            }
+            return series;
+        });
+    }
+
+    /**
+     * Change in percentage points between the 7 days ending on {@code end}
+     * and the 7 days before them.
+     */
+    public double getStudentWeekOverWeekDelta(String studentId, LocalDate end) {
+        LocalDate previous = end.minusDays(7);
+        return readTrends(t -> t.studentWindow(studentId, windowStart(end, 7), end).percentage()
+                - t.studentWindow(studentId, windowStart(previous, 7), previous).percentage());
+    }
+
+    public double getSubjectWeekOverWeekDelta(String subjectCode, LocalDate end) {
+        LocalDate previous = end.minusDays(7);
+        return readTrends(t -> t.subjectWindow(subjectCode, windowStart(end, 7), end).percentage()
+                - t.subjectWindow(subjectCode, windowStart(previous, 7), previous).percentage());
+    }
+
+    /**
+     * Builds the trend sums now if no trend query has yet, so a UI can pay
+     * for the first build off its event thread.
+     */
+    public void prepareTrends() {
+        readTrends(t -> null);
+    }
+
+    // Trends are maintained by writers under the write lock, so queries read them under the read lock
+    private <T> T readTrends(Function<AttendanceTrends, T> query) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (trends != null) {
+                    return query.apply(trends);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            buildTrends();
+        }
+    }
+
+    /**
+     * Builds the trends from the published snapshot without holding a lock,
+     * then installs them if no write has happened since, as getReport does
+     * with its version check. A write in between means the build is redone
+     * under the write lock.
+     */
+    private void buildTrends() {
+        AttendanceSnapshot snap = snapshot;
+        AttendanceTrends built = new AttendanceTrends(snap.store());
+        lock.writeLock().lock();
+        try {
+            if (trends == null) {
+                trends = version == snap.version() ? built : new AttendanceTrends(attendance);
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    private static LocalDate windowStart(LocalDate end, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Window must cover at least one day");
+        }
+        return end.minusDays(days - 1);
     }
 
     public Map<String, Map<String, Double>> getSubjectWiseAttendance() {
+        SubjectAttendanceMatrix matrix = getReport().matrix();
         Map<String, Map<String, Double>> result = new HashMap<>();
-        for (Student s : students) {
+        for (int row = 0; row < matrix.studentCount(); row++) {
             Map<String, Double> subjectPct = new HashMap<>();
-            for (Subject sub : subjects) {
-                subjectPct.put(sub.code(), getAttendancePercentageBySubject(s.id(), sub.code()));
+            for (int col = 0; col < matrix.subjectCount(); col++) {
+                subjectPct.put(matrix.subject(col).code(), matrix.percentage(row, col));
             }
-            result.put(s.id(), subjectPct);
+            result.put(matrix.student(row).id(), subjectPct);
         }
         return result;
     }
 
+    // --- Rankings (range reads on the maintained percentage index) ---
+
+    /**
+     * Students whose overall percentage is below the threshold, lowest first.
+     */
     public List<Student> getStudentsBelowAttendance(double threshold) {
-        return students.stream()
-                .filter(s -> getAttendancePercentage(s.id()) < threshold)
+        return getRanksBelowAttendance(threshold).stream()
+                .map(StudentRank::student)
                 .collect(Collectors.toList());
     }
+
+    public List<StudentRank> getRanksBelowAttendance(double threshold) {
+        lock.readLock().lock();
+        try {
+            return toRanks(ranking.below(threshold));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The k students with the lowest overall percentage, lowest first.
+     */
+    public List<StudentRank> getLowestAttendance(int k) {
+        lock.readLock().lock();
+        try {
+            return toRanks(ranking.lowest(k));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The k students with the lowest percentage in a subject, among those
+     * with records in it.
+     */
+    public List<StudentRank> getLowestAttendanceBySubject(String subjectCode, int k) {
+        lock.readLock().lock();
+        try {
+            return toRanks(ranking.lowest(subjectCode, k));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<StudentRank> getHighestAttendanceBySubject(String subjectCode, int k) {
+        lock.readLock().lock();
+        try {
+            return toRanks(ranking.highest(subjectCode, k));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<StudentRank> toRanks(List<AttendanceRanking.Entry> entries) {
+        List<StudentRank> ranks = new ArrayList<>(entries.size());
+        for (AttendanceRanking.Entry e : entries) {
+            ranks.add(new StudentRank(studentsById.get(e.studentId()), e.percentage()));
+        }
+        return ranks;
+    }
+
+    /**
+     * Timetable index key: one class per day and slot.
+     */
+    private record SlotKey(DayOfWeek day, int slotNumber) {
+        static SlotKey of(TimetableEntry t) {
+            return new SlotKey(t.day(), t.slotNumber());
+        }
+    }
+
+    /**
+     * Ranking position touched by a bulk change.
+     */
+    private record StudentSubject(String studentId, String subjectCode) {
+        static StudentSubject of(AttendanceRecord r) {
+            return new StudentSubject(r.studentId(), r.subjectCode());
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package com.attendance.service;
+
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.model.TimeSlot;
+import com.attendance.model.TimetableEntry;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Immutable view of the service's data as of one version. The service
+ * publishes a new snapshot after each write, and readers use the current
+ * one without locking: the lists never change, and records are decoded
+ * from a frozen copy of the packed store that shares all unchanged chunks
+ * with the live one. Lists unchanged by a write are carried over as is.
+ */
+public final class AttendanceSnapshot {
+    private final long version;
+    private final List<Student> students;
+    private final List<Subject> subjects;
+    private final List<TimeSlot> timeSlots;
+    private final List<TimetableEntry> timetable;
+    private final AttendanceStore attendance;
+
+    AttendanceSnapshot(long version, List<Student> students, List<Subject> subjects, List<TimeSlot> timeSlots,
+            List<TimetableEntry> timetable, AttendanceStore attendance) {
+        this.version = version;
+        this.students = students;
+        this.subjects = subjects;
+        this.timeSlots = timeSlots;
+        this.timetable = timetable;
+        this.attendance = attendance;
+    }
+
+    /**
+     * Service version this snapshot was taken at.
+     */
+    public long version() {
+        return version;
+    }
+
+    public List<Student> students() {
+        return students;
+    }
+
+    public List<Subject> subjects() {
+        return subjects;
+    }
+
+    public List<TimeSlot> timeSlots() {
+        return timeSlots;
+    }
+
+    public List<TimetableEntry> timetable() {
+        return timetable;
+    }
+
+    public int attendanceCount() {
+        return attendance.size();
+    }
+
+    /**
+     * Every record in date order; records are decoded as they are read.
+     */
+    public List<AttendanceRecord> attendance() {
+        return attendance.asList();
+    }
+
+    public List<AttendanceRecord> attendanceNewestFirst() {
+        return attendance.newestFirst();
+    }
+
+    /**
+     * Index in {@link #attendanceNewestFirst()} of the record for this
+     * student, date and slot, or -1 if there is none. Found by binary search
+     * on the packed keys, without decoding records.
+     */
+    public int indexNewestFirst(String studentId, LocalDate date, int slotNumber) {
+        int pos = attendance.indexOf(studentId, date, slotNumber);
+        return pos < 0 ? -1 : attendance.size() - 1 - pos;
+    }
+
+    /**
+     * Records dated within [from, to], oldest first; either bound may be
+     * null for an open range.
+     */
+    public List<AttendanceRecord> attendanceBetween(LocalDate from, LocalDate to) {
+        return attendance.between(from, to);
+    }
+
+    public List<AttendanceRecord> attendanceOfStudent(String studentId, LocalDate from, LocalDate to) {
+        return attendance.studentBetween(studentId, from, to);
+    }
+
+    public List<AttendanceRecord> attendanceOfSubject(String subjectCode) {
+        return attendance.subjectRecords(subjectCode);
+    }
+
+    AttendanceStore store() {
+        return attendance;
+    }
+}
@@ -0,0 +1,541 @@
+package com.attendance.service;
+
+import com.attendance.model.AttendanceRecord;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Compact attendance store. Student ids and subject codes are dictionary
+ * encoded and every record is packed into a single long, kept in one sorted
+ * primitive array: 8 bytes per record plus growth slack, with strings shared
+ * through the dictionaries. {@link AttendanceRecord} objects are created only
+ * when a record is read; scans and aggregations run on the packed values.
+ * The array lives on the heap or off-heap depending on the {@link StorageMode}.
+ *
+ * <p>Packed layout, most significant bit first (bit 63 is always 0):
+ * <pre>
+ * | day (19) | student (22) | slot (7) | subject (14) | present (1) |
+ * </pre>
+ * Because the (student, date, slot) key occupies the high bits with the date
+ * first, sorting the packed values orders records by date, and the key of
+ * a record is found by binary search. Date ranges are contiguous slices, so
+ * range queries and newest-first iteration need no separate index.
+ *
+ * <p>{@link #snapshot()} returns a read-only store frozen at that moment. It
+ * shares the storage chunks and dictionaries with this store, and later
+ * writes copy only the chunks they touch, so snapshots are cheap to take
+ * and safe to read from other threads while this store changes.
+ */
+class AttendanceStore {
+    private static final int SUBJECT_BITS = 14;
+    private static final int SLOT_BITS = 7;
+    private static final int STUDENT_BITS = 22;
+    private static final int DAY_BITS = 19;
+
+    private static final int SUBJECT_SHIFT = 1;
+    private static final int KEY_SHIFT = SUBJECT_SHIFT + SUBJECT_BITS;
+    private static final int STUDENT_SHIFT = KEY_SHIFT + SLOT_BITS;
+    private static final int DAY_SHIFT = STUDENT_SHIFT + STUDENT_BITS;
+    private static final long DAY_BIAS = 1L << (DAY_BITS - 1);
+
+    static final int MAX_SLOT = (1 << SLOT_BITS) - 1;
+
+    private static final int CHECKPOINT_MAGIC = 0x41545453; // "ATTS"
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private final StringDictionary students;
+    private final StringDictionary subjects;
+    private LongStorage data;
+
+    AttendanceStore(Collection<AttendanceRecord> initial) {
+        this(initial, StorageMode.HEAP);
+    }
+
+    AttendanceStore(Collection<AttendanceRecord> initial, StorageMode mode) {
+        this.students = new StringDictionary(1 << STUDENT_BITS);
+        this.subjects = new StringDictionary(1 << SUBJECT_BITS);
+        this.data = LongStorage.create(mode, initial.size());
+        upsertAll(initial);
+    }
+
+    private AttendanceStore(StringDictionary students, StringDictionary subjects, LongStorage data) {
+        this.students = students;
+        this.subjects = subjects;
+        this.data = data;
+    }
+
+    /**
+     * Read-only copy of the current records; mutating it throws
+     * UnsupportedOperationException.
+     */
+    AttendanceStore snapshot() {
+        return new AttendanceStore(students.snapshot(), subjects.snapshot(), data.freeze());
+    }
+
+    /**
+     * Receives the fields of a packed record without materializing it.
+     * Student and subject are dictionary ids, see {@link #studentId(int)}.
+     */
+    @FunctionalInterface
+    interface PackedVisitor {
+        void visit(int student, int subject, long epochDay, int slot, boolean present);
+    }
+
+    // --- Mutations ---
+
+    /**
+     * Inserts the record, or replaces the one with the same key. A new key
+     * is inserted in date order, shifting every later record up by one and
+     * copying any later chunk still shared with a snapshot, so a back-dated
+     * mark costs O(records after it). Marks for the current day shift
+     * almost nothing; bulk loads should go through {@link #upsertAll}.
+     *
+     * @return the replaced record, or null if the key was new
+     */
+    AttendanceRecord upsert(AttendanceRecord record) {
+        long packed = encode(record);
+        int pos = find(packed >>> KEY_SHIFT);
+        if (pos >= 0) {
+            long old = data.get(pos);
+            data.set(pos, packed);
+            return decode(old);
+        }
+        // Marks are usually for recent dates, so the shifted tail is usually short
+        data.insert(-(pos + 1), packed);
+        return null;
+    }
+
+    /**
+     * Upserts many records with a single sort and merge instead of one
+     * shift per record. Within the batch, the last record for a key wins.
+     *
+     * @return the records that no longer exist: replaced stored records and
+     *         earlier batch records superseded by a later one
+     */
+    List<AttendanceRecord> upsertAll(Collection<AttendanceRecord> records) {
+        long[] batch = new long[records.size()];
+        int n = 0;
+        for (AttendanceRecord r : records) {
+            batch[n++] = encode(r);
+        }
+        long[] inputOrder = batch.clone();
+        Arrays.sort(batch);
+
+        List<AttendanceRecord> replaced = new ArrayList<>();
+        n = dedupeSorted(batch, inputOrder, replaced);
+        int size = data.size();
+        if (n == 0) {
+            return replaced;
+        }
+        LongStorage merged = data.newEmpty(size + n);
+        int i = 0, j = 0;
+        while (i < size && j < n) {
+            long existing = data.get(i);
+            long existingKey = existing >>> KEY_SHIFT;
+            long newKey = batch[j] >>> KEY_SHIFT;
+            if (existingKey < newKey) {
+                merged.add(existing);
+                i++;
+            } else if (existingKey > newKey) {
+                merged.add(batch[j++]);
+            } else {
+                replaced.add(decode(existing));
+                merged.add(batch[j++]);
+                i++;
+            }
+        }
+        while (i < size) {
+            merged.add(data.get(i++));
+        }
+        while (j < n) {
+            merged.add(batch[j++]);
+        }
+        data = merged;
+        return replaced;
+    }
+
+    /**
+     * Removes every record of the student in one compaction pass.
+     *
+     * @return true if any record was removed
+     */
+    boolean removeStudent(String studentId) {
+        int student = students.find(studentId);
+        if (student < 0) {
+            return false;
+        }
+        int size = data.size();
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            long v = data.get(i);
+            if (studentOf(v) != student) {
+                data.set(k++, v);
+            }
+        }
+        data.truncate(k);
+        return k < size;
+    }
+
+    // --- Queries ---
+
+    int size() {
+        return data.size();
+    }
+
+    String studentId(int student) {
+        return students.get(student);
+    }
+
+    String subjectCode(int subject) {
+        return subjects.get(subject);
+    }
+
+    /**
+     * Dictionary id of a student, or -1 if no record ever referenced it.
+     */
+    int studentIndex(String studentId) {
+        return students.find(studentId);
+    }
+
+    int subjectIndex(String subjectCode) {
+        return subjects.find(subjectCode);
+    }
+
+    int studentDictionarySize() {
+        return students.size();
+    }
+
+    int subjectDictionarySize() {
+        return subjects.size();
+    }
+
+    /**
+     * Visits the records dated within [from, to] in date order without
+     * creating any objects; either bound may be null for an open range.
+     */
+    void scan(LocalDate from, LocalDate to, PackedVisitor visitor) {
+        int lo = startOf(from);
+        int hi = endOf(to);
+        scan(lo, hi, visitor);
+    }
+
+    /**
+     * Visits the records at positions [lo, hi) in date order.
+     */
+    void scan(int lo, int hi, PackedVisitor visitor) {
+        for (int i = lo; i < hi; i++) {
+            long v = data.get(i);
+            visitor.visit(studentOf(v), subjectOf(v), (v >>> DAY_SHIFT) - DAY_BIAS,
+                    (int) (v >>> KEY_SHIFT) & MAX_SLOT, (v & 1L) != 0);
+        }
+    }
+
+    /**
+     * Records of one subject; only matching records are materialized.
+     */
+    List<AttendanceRecord> subjectRecords(String subjectCode) {
+        int subject = subjects.find(subjectCode);
+        List<AttendanceRecord> result = new ArrayList<>();
+        if (subject < 0) {
+            return result;
+        }
+        for (int i = 0; i < data.size(); i++) {
+            long v = data.get(i);
+            if (subjectOf(v) == subject) {
+                result.add(decode(v));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Live read-only view of every record in date order.
+     */
+    List<AttendanceRecord> asList() {
+        return new RecordView(false);
+    }
+
+    /**
+     * Live read-only view of every record, newest date first.
+     */
+    List<AttendanceRecord> newestFirst() {
+        return new RecordView(true);
+    }
+
+    /**
+     * Position in date order of the record with this student, date and slot,
+     * or -1 if there is none.
+     */
+    int indexOf(String studentId, LocalDate date, int slotNumber) {
+        int student = students.find(studentId);
+        long day = date.toEpochDay() + DAY_BIAS;
+        if (student < 0 || day < 0 || day >= (1L << DAY_BITS) || slotNumber < 0 || slotNumber > MAX_SLOT) {
+            return -1;
+        }
+        long key = (day << (DAY_SHIFT - KEY_SHIFT))
+                | ((long) student << (STUDENT_SHIFT - KEY_SHIFT))
+                | slotNumber;
+        return Math.max(find(key), -1);
+    }
+
+    /**
+     * Records dated within [from, to] in ascending date order; either bound
+     * may be null for an open range. The view is valid until the next change.
+     */
+    List<AttendanceRecord> between(LocalDate from, LocalDate to) {
+        int lo = startOf(from);
+        int hi = endOf(to);
+        return asList().subList(lo, Math.max(lo, hi));
+    }
+
+    /**
+     * A student's records dated within [from, to], found by scanning only the
+     * packed values in that date range.
+     */
+    List<AttendanceRecord> studentBetween(String studentId, LocalDate from, LocalDate to) {
+        int student = students.find(studentId);
+        List<AttendanceRecord> result = new ArrayList<>();
+        if (student < 0) {
+            return result;
+        }
+        int lo = startOf(from);
+        int hi = endOf(to);
+        for (int i = lo; i < hi; i++) {
+            long v = data.get(i);
+            if (studentOf(v) == student) {
+                result.add(decode(v));
+            }
+        }
+        return result;
+    }
+
+    // --- Encoding ---
+
+    /**
+     * Whether the date fits the packed day field, about 700 years either
+     * side of 1970.
+     */
+    static boolean supportsDate(LocalDate date) {
+        long day = date.toEpochDay() + DAY_BIAS;
+        return day >= 0 && day < (1L << DAY_BITS);
+    }
+
+    private long encode(AttendanceRecord r) {
+        if (!supportsDate(r.date())) {
+            throw new IllegalArgumentException("Date out of supported range: " + r.date());
+        }
+        long day = r.date().toEpochDay() + DAY_BIAS;
+        if (r.slotNumber() < 0 || r.slotNumber() > MAX_SLOT) {
+            throw new IllegalArgumentException("Slot out of supported range: " + r.slotNumber());
+        }
+        return (day << DAY_SHIFT)
+                | ((long) students.idOf(r.studentId()) << STUDENT_SHIFT)
+                | ((long) r.slotNumber() << KEY_SHIFT)
+                | ((long) subjects.idOf(r.subjectCode()) << SUBJECT_SHIFT)
+                | (r.present() ? 1L : 0L);
+    }
+
+    private AttendanceRecord decode(long v) {
+        return new AttendanceRecord(
+                students.get(studentOf(v)),
+                subjects.get(subjectOf(v)),
+                LocalDate.ofEpochDay((v >>> DAY_SHIFT) - DAY_BIAS),
+                (int) (v >>> KEY_SHIFT) & MAX_SLOT,
+                (v & 1L) != 0);
+    }
+
+    private static int studentOf(long v) {
+        return (int) (v >>> STUDENT_SHIFT) & ((1 << STUDENT_BITS) - 1);
+    }
+
+    private static int subjectOf(long v) {
+        return (int) (v >>> SUBJECT_SHIFT) & ((1 << SUBJECT_BITS) - 1);
+    }
+
+    // --- Checkpoints ---
+
+    /**
+     * Writes the dictionaries followed by the packed values, which go to the
+     * file channel straight from their storage segments.
+     */
+    void writeTo(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream header = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(ch)));
+            header.writeInt(CHECKPOINT_MAGIC);
+            header.writeInt(CHECKPOINT_VERSION);
+            header.writeInt(students.size());
+            for (int i = 0; i < students.size(); i++) {
+                header.writeUTF(students.get(i));
+            }
+            header.writeInt(subjects.size());
+            for (int i = 0; i < subjects.size(); i++) {
+                header.writeUTF(subjects.get(i));
+            }
+            header.writeInt(data.size());
+            header.flush();
+            data.writeTo(ch);
+        }
+    }
+
+    /**
+     * Reads a store written by {@link #writeTo(Path)}.
+     */
+    static AttendanceStore readFrom(Path file, StorageMode mode) throws IOException {
+        AttendanceStore store = new AttendanceStore(List.of(), mode);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Unbuffered so the header reader does not consume packed values
+            DataInputStream header = new DataInputStream(Channels.newInputStream(ch));
+            if (header.readInt() != CHECKPOINT_MAGIC || header.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("Not an attendance checkpoint: " + file);
+            }
+            for (int i = header.readInt(); i > 0; i--) {
+                store.students.idOf(header.readUTF());
+            }
+            for (int i = header.readInt(); i > 0; i--) {
+                store.subjects.idOf(header.readUTF());
+            }
+            store.data.readFrom(ch, header.readInt());
+        }
+        return store;
+    }
+
+    // --- Array helpers ---
+
+    /**
+     * Binary search by key.
+     *
+     * @return index of the key, or (-(insertion point) - 1) if absent
+     */
+    private int find(long key) {
+        int lo = 0, hi = data.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midKey = data.get(mid) >>> KEY_SHIFT;
+            if (midKey < key) {
+                lo = mid + 1;
+            } else if (midKey > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * First position dated on or after {@code from}; 0 when null.
+     */
+    int startOf(LocalDate from) {
+        return from == null ? 0 : firstIndexOn(from);
+    }
+
+    /**
+     * Position after the last record dated on or before {@code to}; the size
+     * when null.
+     */
+    int endOf(LocalDate to) {
+        return to == null ? data.size() : firstIndexOn(to.plusDays(1));
+    }
+
+    private int firstIndexOn(LocalDate date) {
+        long day = date.toEpochDay() + DAY_BIAS;
+        if (day <= 0) {
+            return 0;
+        }
+        if (day >= (1L << DAY_BITS)) {
+            return data.size();
+        }
+        long bound = day << DAY_SHIFT;
+        int lo = 0, hi = data.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (data.get(mid) < bound) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Collapses runs of equal keys in a sorted batch to the value that came
+     * last in input order, adding the dropped values to {@code superseded},
+     * and returns the new length. Duplicates are rare, so input order is only
+     * consulted for the keys that repeat.
+     */
+    private int dedupeSorted(long[] batch, long[] inputOrder, List<AttendanceRecord> superseded) {
+        Map<Long, Long> lastByKey = null;
+        for (int i = 1; i < batch.length; i++) {
+            if ((batch[i - 1] >>> KEY_SHIFT) == (batch[i] >>> KEY_SHIFT)) {
+                if (lastByKey == null) {
+                    lastByKey = new HashMap<>();
+                }
+                lastByKey.put(batch[i] >>> KEY_SHIFT, batch[i]);
+            }
+        }
+        if (lastByKey == null) {
+            return batch.length;
+        }
+        for (long v : inputOrder) {
+            lastByKey.computeIfPresent(v >>> KEY_SHIFT, (key, last) -> v);
+        }
+
+        int k = 0;
+        int i = 0;
+        while (i < batch.length) {
+            long key = batch[i] >>> KEY_SHIFT;
+            int end = i + 1;
+            while (end < batch.length && (batch[end] >>> KEY_SHIFT) == key) {
+                end++;
+            }
+            if (end - i == 1) {
+                batch[k++] = batch[i];
+            } else {
+                long kept = lastByKey.get(key);
+                boolean keptSeen = false;
+                for (int j = i; j < end; j++) {
+                    if (batch[j] == kept && !keptSeen) {
+                        keptSeen = true;
+                    } else {
+                        superseded.add(decode(batch[j]));
+                    }
+                }
+                batch[k++] = kept;
+            }
+            i = end;
+        }
+        return k;
+    }
+
+    /**
+     * Decodes records on access; reads the store's current contents.
+     */
+    private final class RecordView extends AbstractList<AttendanceRecord> implements RandomAccess {
+        private final boolean reversed;
+
+        RecordView(boolean reversed) {
+            this.reversed = reversed;
+        }
+
+        @Override
+        public AttendanceRecord get(int index) {
+            int size = data.size();
+            Objects.checkIndex(index, size);
+            return decode(data.get(reversed ? size - 1 - index : index));
+        }
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+    }
+}
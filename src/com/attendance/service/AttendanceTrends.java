@@ -0,0 +1,138 @@
+package com.attendance.service;
+
+import com.attendance.model.AttendanceRecord;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cumulative present/total counts per student and per subject, kept only
+ * for the days that have records. Any date window is answered from two
+ * binary-searched prefix-sum lookups, so rolling 7- and 30-day figures cost
+ * O(log days) however long the history is. Writes adjust the prefix sums from
+ * the marked day onwards, which is short for the usual marks on recent
+ * dates.
+ */
+class AttendanceTrends {
+    private final Map<String, DailySeries> byStudent = new HashMap<>();
+    private final Map<String, DailySeries> bySubject = new HashMap<>();
+
+    AttendanceTrends(AttendanceStore store) {
+        // Date order means every record lands on the last day of its series
+        store.scan(null, null, (student, subject, epochDay, slot, present) ->
+                add(store.studentId(student), store.subjectCode(subject), epochDay, present, 1));
+    }
+
+    void update(AttendanceRecord replaced, AttendanceRecord record) {
+        if (replaced != null) {
+            add(replaced, -1);
+        }
+        add(record, 1);
+    }
+
+    void remove(AttendanceRecord record) {
+        add(record, -1);
+    }
+
+    /**
+     * Drops a removed student's series and takes their records out of the
+     * subject series.
+     */
+    void removeStudent(String studentId, List<AttendanceRecord> records) {
+        byStudent.remove(studentId);
+        for (AttendanceRecord r : records) {
+            DailySeries series = bySubject.get(r.subjectCode());
+            if (series != null) {
+                series.add(r.date().toEpochDay(), r.present(), -1);
+            }
+        }
+    }
+
+    TrendWindow studentWindow(String studentId, LocalDate from, LocalDate to) {
+        return window(byStudent.get(studentId), from, to);
+    }
+
+    TrendWindow subjectWindow(String subjectCode, LocalDate from, LocalDate to) {
+        return window(bySubject.get(subjectCode), from, to);
+    }
+
+    private static TrendWindow window(DailySeries series, LocalDate from, LocalDate to) {
+        if (series == null) {
+            return new TrendWindow(from, to, 0, 0);
+        }
+        long before = from.toEpochDay() - 1;
+        long last = to.toEpochDay();
+        return new TrendWindow(from, to,
+                series.presentThrough(last) - series.presentThrough(before),
+                series.totalThrough(last) - series.totalThrough(before));
+    }
+
+    private void add(AttendanceRecord r, int delta) {
+        add(r.studentId(), r.subjectCode(), r.date().toEpochDay(), r.present(), delta);
+    }
+
+    private void add(String studentId, String subjectCode, long epochDay, boolean present, int delta) {
+        byStudent.computeIfAbsent(studentId, k -> new DailySeries()).add(epochDay, present, delta);
+        bySubject.computeIfAbsent(subjectCode, k -> new DailySeries()).add(epochDay, present, delta);
+    }
+
+    /**
+     * Cumulative counts at each day that has records, in day order; entry i
+     * holds the sums through {@code days[i]}. Days without records cost
+     * nothing, so memory follows the marked days rather than the date range.
+     */
+    private static final class DailySeries {
+        private long[] days = new long[16];
+        private int[] present = new int[16];
+        private int[] total = new int[16];
+        private int length;
+
+        void add(long day, boolean isPresent, int delta) {
+            int i = Arrays.binarySearch(days, 0, length, day);
+            if (i < 0) {
+                i = -i - 1;
+                insertAt(i, day);
+            }
+            for (; i < length; i++) {
+                total[i] += delta;
+                if (isPresent) {
+                    present[i] += delta;
+                }
+            }
+        }
+
+        int presentThrough(long day) {
+            int i = lastAtOrBefore(day);
+            return i < 0 ? 0 : present[i];
+        }
+
+        int totalThrough(long day) {
+            int i = lastAtOrBefore(day);
+            return i < 0 ? 0 : total[i];
+        }
+
+        private int lastAtOrBefore(long day) {
+            int i = Arrays.binarySearch(days, 0, length, day);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        // A new day starts from the sums through the day before it
+        private void insertAt(int i, long day) {
+            if (length == days.length) {
+                days = Arrays.copyOf(days, length * 2);
+                present = Arrays.copyOf(present, length * 2);
+                total = Arrays.copyOf(total, length * 2);
+            }
+            System.arraycopy(days, i, days, i + 1, length - i);
+            System.arraycopy(present, i, present, i + 1, length - i);
+            System.arraycopy(total, i, total, i + 1, length - i);
+            days[i] = day;
+            present[i] = i == 0 ? 0 : present[i - 1];
+            total[i] = i == 0 ? 0 : total[i - 1];
+            length++;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.attendance.service;
+
+import java.util.Map;
+
+/**
+ * Outcome of marking a whole session: how many marks were applied and,
+ * per student id, why any others were rejected.
+ */
+public record BatchMarkResult(int marked, Map<String, String> failures) {
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,379 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.exception.ValidationException;
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.model.TimetableEntry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Streams CSV files of students, subjects, timetable entries or attendance
+ * into the service. Rows are validated with the same rules as the single-row
+ * operations; rows that fail are collected in the result instead of aborting
+ * the import. Catalog files are parsed without holding any lock and then
+ * applied in one write; attendance is applied and persisted in batches. The
+ * attendance format is the one written by {@link AttendanceExporter}.
+ * Demonstrates: Streaming I/O, batching, enums with behaviour.
+ */
+public class BulkImporter {
+    private static final int ATTENDANCE_BATCH_SIZE = 100_000;
+    // Past this many changes one full rewrite is cheaper than journaling each
+    private static final int FULL_SAVE_THRESHOLD = 100_000;
+
+    /**
+     * Kinds of CSV input, each with its expected header.
+     */
+    public enum Kind {
+        STUDENTS("student_id,name,roll_no"),
+        SUBJECTS("code,name"),
+        TIMETABLE("day,slot,subject_code"),
+        ATTENDANCE("student_id,subject_code,date,slot,present");
+
+        private final String header;
+
+        Kind(String header) {
+            this.header = header;
+        }
+
+        public String header() {
+            return header;
+        }
+
+        private int columns() {
+            return header.split(",").length;
+        }
+    }
+
+    /**
+     * A rejected input row: its line number, raw text and the reason.
+     */
+    public record RejectedRow(long line, String text, String reason) {
+    }
+
+    public record ImportResult(long imported, List<RejectedRow> rejected) {
+        public boolean hasRejections() {
+            return !rejected.isEmpty();
+        }
+
+        /**
+         * Writes the rejected rows as CSV: line, reason, original row.
+         */
+        public void writeRejected(Writer out) throws IOException {
+            out.write("line,reason,row\n");
+            for (RejectedRow r : rejected) {
+                out.write(r.line() + "," + quote(r.reason()) + "," + quote(r.text()) + "\n");
+            }
+            out.flush();
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private final AttendanceService service;
+
+    public BulkImporter(AttendanceService service) {
+        this.service = service;
+    }
+
+    public ImportResult importCsv(Kind kind, Reader in) throws AttendanceException {
+        return switch (kind) {
+            case STUDENTS -> importStudents(in);
+            case SUBJECTS -> importSubjects(in);
+            case TIMETABLE -> importTimetable(in);
+            case ATTENDANCE -> importAttendance(in);
+        };
+    }
+
+    public ImportResult importStudents(Reader in) throws AttendanceException {
+        return importCatalog(in, Kind.STUDENTS,
+                fields -> new Student(fields[0], fields[1], fields[2]),
+                service::applyStudent,
+                service::persistStudentsAsync);
+    }
+
+    public ImportResult importSubjects(Reader in) throws AttendanceException {
+        return importCatalog(in, Kind.SUBJECTS,
+                fields -> new Subject(fields[0], fields[1]),
+                service::applySubject,
+                service::persistSubjectsAsync);
+    }
+
+    public ImportResult importTimetable(Reader in) throws AttendanceException {
+        return importCatalog(in, Kind.TIMETABLE, fields -> {
+            DayOfWeek day;
+            try {
+                day = DayOfWeek.valueOf(fields[0].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid day: " + fields[0]);
+            }
+            return new TimetableEntry(day, parseSlot(fields[1]), fields[2]);
+        }, entry -> {
+            if (service.findSubjectByCode(entry.subjectCode()).isEmpty()) {
+                throw new ValidationException("Unknown subject: " + entry.subjectCode());
+            }
+            service.applyTimetableEntry(entry);
+        }, service::persistTimetableAsync);
+    }
+
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(String[] fields) throws AttendanceException;
+    }
+
+    @FunctionalInterface
+    private interface RowApplier<T> {
+        void apply(T value) throws AttendanceException;
+    }
+
+    private record ParsedRow<T>(long line, String text, T value) {
+    }
+
+    /**
+     * Parses the whole file without holding a lock, then applies the rows in
+     * one hold of the write lock, so readers see the whole file at once but
+     * only wait for the in-memory changes. The save is queued before the lock
+     * is released and awaited after it.
+     */
+    private <T> ImportResult importCatalog(Reader in, Kind kind, RowParser<T> parser, RowApplier<T> applier,
+            Supplier<CompletableFuture<Void>> save) throws AttendanceException {
+        List<RejectedRow> rejected = new ArrayList<>();
+        List<ParsedRow<T>> rows = new ArrayList<>();
+        read(in, kind, rejected, (line, text, fields) -> rows.add(new ParsedRow<>(line, text, parser.parse(fields))));
+
+        long[] imported = {0};
+        CompletableFuture<Void> saved = service.writeAtomically(() -> {
+            for (ParsedRow<T> row : rows) {
+                try {
+                    applier.apply(row.value());
+                    imported[0]++;
+                } catch (AttendanceException e) {
+                    rejected.add(new RejectedRow(row.line(), row.text(), e.getMessage()));
+                }
+            }
+            return imported[0] > 0 ? save.get() : CompletableFuture.<Void>completedFuture(null);
+        });
+        AsyncDataManagerAdapter.await(saved);
+        rejected.sort(Comparator.comparingLong(RejectedRow::line));
+        return new ImportResult(imported[0], rejected);
+    }
+
+    /**
+     * Imports attendance marks; a later row for the same student, date and
+     * slot corrects an earlier one, as with repeated markAttendance calls.
+     */
+    public ImportResult importAttendance(Reader in) throws AttendanceException {
+        List<RejectedRow> rejected = new ArrayList<>();
+        AttendanceBatcher batcher = new AttendanceBatcher();
+        long imported = read(in, Kind.ATTENDANCE, rejected, (line, text, fields) -> {
+            AttendanceRecord record = service.validateMark(fields[0], fields[1], batcher.date(fields[2]),
+                    parseSlot(fields[3]), parsePresent(fields[4]));
+            batcher.add(record);
+        });
+        batcher.finish();
+        return new ImportResult(imported, rejected);
+    }
+
+    /**
+     * Applies validated marks to the service in batches that grow with the
+     * store, so the sort-and-merge cost stays proportional to the import.
+     * Each batch queues its own save as it is applied, so concurrent marks
+     * and removals reach storage in the same order as memory. Small imports
+     * append their marks; once an import passes the full-save threshold each
+     * further batch rewrites the history instead.
+     */
+    private final class AttendanceBatcher {
+        private List<AttendanceRecord> batch = new ArrayList<>();
+        private final List<CompletableFuture<Void>> saves = new ArrayList<>();
+        private final boolean canRewrite = service.getHistoryLoadedFrom().isEmpty();
+        private long applied;
+        // Rows usually arrive grouped by date, so each date string is parsed once
+        private String lastDateText;
+        private LocalDate lastDate;
+
+        LocalDate date(String text) throws ValidationException {
+            if (!text.equals(lastDateText)) {
+                try {
+                    lastDate = LocalDate.parse(text);
+                } catch (DateTimeParseException e) {
+                    throw new ValidationException("Invalid date: " + text);
+                }
+                lastDateText = text;
+            }
+            return lastDate;
+        }
+
+        void add(AttendanceRecord record) {
+            batch.add(record);
+            if (batch.size() >= Math.max(ATTENDANCE_BATCH_SIZE, service.getSnapshot().attendanceCount())) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            applied += batch.size();
+            saves.add(service.importMarksAsync(batch, canRewrite && applied > FULL_SAVE_THRESHOLD));
+            batch = new ArrayList<>();
+        }
+
+        void finish() throws AttendanceException {
+            flush();
+            AsyncDataManagerAdapter.await(CompletableFuture.allOf(saves.toArray(CompletableFuture<?>[]::new)));
+        }
+    }
+
+    // --- Parsing ---
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(long line, String text, String[] fields) throws AttendanceException;
+    }
+
+    /**
+     * Reads rows one at a time, skipping blank lines and a leading header,
+     * and hands each to the handler; rows whose handler throws are rejected.
+     *
+     * @return number of rows the handler accepted
+     */
+    private long read(Reader in, Kind kind, List<RejectedRow> rejected, RowHandler handler)
+            throws AttendanceException {
+        BufferedReader reader = in instanceof BufferedReader b ? b : new BufferedReader(in, 64 * 1024);
+        long lineNumber = 0;
+        long accepted = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long rowStart = ++lineNumber;
+                // A quoted field may span lines
+                while (hasOpenQuote(line)) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        break;
+                    }
+                    line = line + "\n" + next;
+                    lineNumber++;
+                }
+                if (line.isBlank() || (rowStart == 1 && isHeader(line, kind))) {
+                    continue;
+                }
+                try {
+                    String[] fields = parseCsv(line);
+                    if (fields.length != kind.columns()) {
+                        throw new ValidationException(
+                                "Expected " + kind.columns() + " columns (" + kind.header() + ")");
+                    }
+                    handler.accept(rowStart, line, fields);
+                    accepted++;
+                } catch (AttendanceException e) {
+                    rejected.add(new RejectedRow(rowStart, line, e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to read import at line " + lineNumber, e);
+        }
+        return accepted;
+    }
+
+    private static boolean isHeader(String line, Kind kind) {
+        return line.replace(" ", "").equalsIgnoreCase(kind.header());
+    }
+
+    private static boolean hasOpenQuote(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return (quotes & 1) != 0;
+    }
+
+    /**
+     * Splits one CSV row, honouring double-quoted fields with "" escapes.
+     * Unquoted fields are trimmed.
+     */
+    static String[] parseCsv(String line) {
+        if (line.indexOf('"') < 0) {
+            return splitUnquoted(line);
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(wasQuoted ? field.toString() : field.toString().trim());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(wasQuoted ? field.toString() : field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String[] splitUnquoted(String line) {
+        int count = 1;
+        for (int i = line.indexOf(','); i >= 0; i = line.indexOf(',', i + 1)) {
+            count++;
+        }
+        String[] fields = new String[count];
+        int start = 0;
+        for (int f = 0; f < count - 1; f++) {
+            int end = line.indexOf(',', start);
+            fields[f] = line.substring(start, end).trim();
+            start = end + 1;
+        }
+        fields[count - 1] = line.substring(start).trim();
+        return fields;
+    }
+
+    private static int parseSlot(String text) throws ValidationException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid slot number: " + text);
+        }
+    }
+
+    private static boolean parsePresent(String text) throws ValidationException {
+        return switch (text.toLowerCase(Locale.ROOT)) {
+            case "true", "present", "p", "1" -> true;
+            case "false", "absent", "a", "0" -> false;
+            default -> throw new ValidationException("Invalid present flag: " + text);
+        };
+    }
+}
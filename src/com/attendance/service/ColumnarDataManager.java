@@ -0,0 +1,279 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * DataManager decorator that stores attendance in a compact binary columnar
+ * file and reads it back through a memory map. Student and subject ids are
+ * dictionary encoded; dates, slots and the present flag are fixed-width
+ * columns, so a row costs 13 bytes plus one bit on disk. Other entities are
+ * delegated unchanged.
+ * Demonstrates: FileChannel, MappedByteBuffer, AbstractList views.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * int magic, int version, int rows, int studentCount, int subjectCount
+ * studentCount x (short length, UTF-8 bytes)
+ * subjectCount x (short length, UTF-8 bytes)
+ * int[rows] student index, int[rows] subject index, int[rows] epoch day,
+ * byte[rows] slot, long[(rows + 63) / 64] present bitset
+ * </pre>
+ */
+public class ColumnarDataManager implements DataManager {
+    private static final String ATTENDANCE_FILE = "attendance.col";
+    private static final int MAGIC = 0x41545443; // "ATTC"
+    private static final int VERSION = 1;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final DataManager base;
+    private final Path attendanceFile;
+
+    public ColumnarDataManager(DataManager base) {
+        this(base, ATTENDANCE_FILE);
+    }
+
+    public ColumnarDataManager(DataManager base, String attendanceFile) {
+        this.base = base;
+        this.attendanceFile = Paths.get(attendanceFile);
+    }
+
+    /**
+     * One-shot conversion of the attendance history held by another
+     * DataManager (typically the legacy serialized attendance.dat).
+     *
+     * @return number of converted records
+     */
+    public int importFrom(DataManager legacy) throws AttendanceException {
+        List<AttendanceRecord> records = legacy.loadAttendance();
+        saveAttendance(records);
+        return records.size();
+    }
+
+    // --- Attendance ---
+    @Override
+    public synchronized void saveAttendance(List<AttendanceRecord> records) throws AttendanceException {
+        Map<String, Integer> studentDict = new LinkedHashMap<>();
+        Map<String, Integer> subjectDict = new LinkedHashMap<>();
+        for (AttendanceRecord r : records) {
+            studentDict.putIfAbsent(r.studentId(), studentDict.size());
+            subjectDict.putIfAbsent(r.subjectCode(), subjectDict.size());
+        }
+
+        Path tmp = attendanceFile.resolveSibling(attendanceFile.getFileName() + ".tmp");
+        try {
+            writeColumns(tmp, records, studentDict, subjectDict);
+            Files.move(tmp, attendanceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to save to " + attendanceFile, e);
+        } finally {
+            try {
+                Files.deleteIfExists(tmp); // only still there if the write failed
+            } catch (IOException ignored) {
+                // The next save truncates it
+            }
+        }
+    }
+
+    private static void writeColumns(Path tmp, List<AttendanceRecord> records, Map<String, Integer> studentDict,
+            Map<String, Integer> subjectDict) throws IOException {
+        int rows = records.size();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(studentDict.size()).putInt(subjectDict.size());
+            for (String s : studentDict.keySet()) {
+                putString(ch, buf, s);
+            }
+            for (String s : subjectDict.keySet()) {
+                putString(ch, buf, s);
+            }
+            for (AttendanceRecord r : records) {
+                ensure(ch, buf, Integer.BYTES).putInt(studentDict.get(r.studentId()));
+            }
+            for (AttendanceRecord r : records) {
+                ensure(ch, buf, Integer.BYTES).putInt(subjectDict.get(r.subjectCode()));
+            }
+            for (AttendanceRecord r : records) {
+                ensure(ch, buf, Integer.BYTES).putInt(Math.toIntExact(r.date().toEpochDay()));
+            }
+            for (AttendanceRecord r : records) {
+                if (r.slotNumber() < 0 || r.slotNumber() > Byte.MAX_VALUE) {
+                    throw new IOException("Slot out of range for columnar storage: " + r.slotNumber());
+                }
+                ensure(ch, buf, 1).put((byte) r.slotNumber());
+            }
+            long word = 0;
+            for (int i = 0; i < rows; i++) {
+                if (records.get(i).present()) {
+                    word |= 1L << (i & 63);
+                }
+                if ((i & 63) == 63 || i == rows - 1) {
+                    ensure(ch, buf, Long.BYTES).putLong(word);
+                    word = 0;
+                }
+            }
+            drain(ch, buf);
+        }
+    }
+
+    /**
+     * Maps the columnar file and returns a read-only list that decodes rows on
+     * access. Falls back to the wrapped manager when no columnar file exists
+     * yet, so an existing attendance.dat is migrated on the next save.
+     */
+    @Override
+    public synchronized List<AttendanceRecord> loadAttendance() throws AttendanceException {
+        if (!Files.exists(attendanceFile)) {
+            return base.loadAttendance();
+        }
+        try (FileChannel ch = FileChannel.open(attendanceFile, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new MappedAttendanceList(map);
+        } catch (IOException | RuntimeException e) {
+            throw new AttendanceException("Failed to load from " + attendanceFile, e);
+        }
+    }
+
+    // --- Delegated entities ---
+    @Override
+    public void saveStudents(List<Student> students) throws AttendanceException {
+        base.saveStudents(students);
+    }
+
+    @Override
+    public List<Student> loadStudents() throws AttendanceException {
+        return base.loadStudents();
+    }
+
+    @Override
+    public void saveSubjects(List<Subject> subjects) throws AttendanceException {
+        base.saveSubjects(subjects);
+    }
+
+    @Override
+    public List<Subject> loadSubjects() throws AttendanceException {
+        return base.loadSubjects();
+    }
+
+    @Override
+    public void saveTimeSlots(List<TimeSlot> slots) throws AttendanceException {
+        base.saveTimeSlots(slots);
+    }
+
+    @Override
+    public List<TimeSlot> loadTimeSlots() throws AttendanceException {
+        return base.loadTimeSlots();
+    }
+
+    @Override
+    public void saveTimetable(List<TimetableEntry> entries) throws AttendanceException {
+        base.saveTimetable(entries);
+    }
+
+    @Override
+    public List<TimetableEntry> loadTimetable() throws AttendanceException {
+        return base.loadTimetable();
+    }
+
+    // --- Buffer helpers ---
+    private static void putString(FileChannel ch, ByteBuffer buf, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Identifier too long: " + s.substring(0, 32) + "...");
+        }
+        ensure(ch, buf, Short.BYTES + bytes.length).putShort((short) bytes.length).put(bytes);
+    }
+
+    private static ByteBuffer ensure(FileChannel ch, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() < bytes) {
+            drain(ch, buf);
+        }
+        return buf;
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Read-only list view over a mapped columnar file. Only the dictionaries
+     * are decoded eagerly; each row is materialized on access.
+     */
+    private static final class MappedAttendanceList extends AbstractList<AttendanceRecord> implements RandomAccess {
+        private final ByteBuffer map;
+        private final int rows;
+        private final String[] students;
+        private final String[] subjects;
+        private final int studentCol;
+        private final int subjectCol;
+        private final int dayCol;
+        private final int slotCol;
+        private final int presentCol;
+
+        MappedAttendanceList(ByteBuffer map) throws IOException {
+            this.map = map;
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a columnar attendance file (version " + VERSION + ")");
+            }
+            rows = map.getInt(8);
+            int pos = 20;
+            students = new String[map.getInt(12)];
+            for (int i = 0; i < students.length; i++) {
+                int len = map.getShort(pos);
+                students[i] = readString(pos + Short.BYTES, len);
+                pos += Short.BYTES + len;
+            }
+            subjects = new String[map.getInt(16)];
+            for (int i = 0; i < subjects.length; i++) {
+                int len = map.getShort(pos);
+                subjects[i] = readString(pos + Short.BYTES, len);
+                pos += Short.BYTES + len;
+            }
+            studentCol = pos;
+            subjectCol = studentCol + rows * Integer.BYTES;
+            dayCol = subjectCol + rows * Integer.BYTES;
+            slotCol = dayCol + rows * Integer.BYTES;
+            presentCol = slotCol + rows;
+            if (presentCol + ((rows + 63) / 64) * Long.BYTES > map.limit()) {
+                throw new IOException("Truncated columnar attendance file");
+            }
+        }
+
+        private String readString(int offset, int len) {
+            byte[] bytes = new byte[len];
+            map.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public AttendanceRecord get(int index) {
+            Objects.checkIndex(index, rows);
+            long word = map.getLong(presentCol + (index >>> 6) * Long.BYTES);
+            return new AttendanceRecord(
+                    students[map.getInt(studentCol + index * Integer.BYTES)],
+                    subjects[map.getInt(subjectCol + index * Integer.BYTES)],
+                    LocalDate.ofEpochDay(map.getInt(dayCol + index * Integer.BYTES)),
+                    map.get(slotCol + index),
+                    (word & (1L << (index & 63))) != 0);
+        }
+
+        @Override
+        public int size() {
+            return rows;
+        }
+    }
+}
@@ -3,11 +3,16 @@ package com.attendance.service;
 import com.attendance.exception.AttendanceException;
 import com.attendance.model.*;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Interface for data persistence operations.
- * Demonstrates: Interfaces, abstraction.
+ * Demonstrates: Interfaces, abstraction, default methods.
  */
 public interface DataManager {
     void saveStudents(List<Student> students) throws AttendanceException;
@@ -18,6 +23,17 @@ public interface DataManager {
 
     List<AttendanceRecord> loadAttendance() throws AttendanceException;
 
+    /**
+     * Loads the records dated within [from, to]; either bound may be null for
+     * an open range. Managers that store attendance by date should override
+     * this to avoid reading the whole history.
+     */
+    default List<AttendanceRecord> loadAttendance(LocalDate from, LocalDate to) throws AttendanceException {
+        return loadAttendance().stream()
+                .filter(r -> (from == null || !r.date().isBefore(from)) && (to == null || !r.date().isAfter(to)))
+                .collect(Collectors.toList());
+    }
+
     void saveSubjects(List<Subject> subjects) throws AttendanceException;
 
     List<Subject> loadSubjects() throws AttendanceException;
@@ -29,4 +45,43 @@ public interface DataManager {
     void saveTimetable(List<TimetableEntry> entries) throws AttendanceException;
 
     List<TimetableEntry> loadTimetable() throws AttendanceException;
+
+    // --- Incremental attendance persistence ---
+
+    /**
+     * Whether this manager can persist single attendance changes without
+     * rewriting the whole history. When false, {@link #appendAttendance(List)}
+     * and {@link #deleteAttendanceForStudent(String)} still work but load and
+     * rewrite everything, so callers that already hold the full list should
+     * call {@link #saveAttendance(List)} instead.
+     */
+    default boolean supportsIncrementalAttendance() {
+        return false;
+    }
+
+    /**
+     * Persists upserted records, each replacing any earlier record with the
+     * same student, date and slot. The default rewrites the whole history.
+     */
+    default void appendAttendance(List<AttendanceRecord> upserts) throws AttendanceException {
+        Map<AttendanceKey, AttendanceRecord> state = new LinkedHashMap<>();
+        for (AttendanceRecord r : loadAttendance()) {
+            state.put(AttendanceKey.of(r), r);
+        }
+        for (AttendanceRecord r : upserts) {
+            state.put(AttendanceKey.of(r), r);
+        }
+        saveAttendance(new ArrayList<>(state.values()));
+    }
+
+    /**
+     * Persists the removal of every attendance record of a student. The
+     * default rewrites the whole history.
+     */
+    default void deleteAttendanceForStudent(String studentId) throws AttendanceException {
+        List<AttendanceRecord> records = new ArrayList<>(loadAttendance());
+        if (records.removeIf(r -> r.studentId().equals(studentId))) {
+            saveAttendance(records);
+        }
+    }
 }
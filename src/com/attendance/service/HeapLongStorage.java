@@ -0,0 +1,170 @@
+package com.attendance.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * LongStorage over heap arrays of 4096 longs (32 KB) each. Chunks handed to
+ * a frozen copy are marked shared and copied on their next write, so a
+ * correction to a recent record copies one chunk, not the whole history.
+ */
+final class HeapLongStorage extends LongStorage {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_LONGS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_LONGS - 1;
+
+    private long[][] chunks;
+    private int chunkCount;
+    private int size;
+    private final BitSet shared = new BitSet();
+    private final boolean frozen;
+
+    HeapLongStorage(int expectedSize) {
+        chunks = new long[Math.max(1, (expectedSize + CHUNK_MASK) >>> CHUNK_SHIFT)][];
+        frozen = false;
+    }
+
+    private HeapLongStorage(long[][] chunks, int chunkCount, int size) {
+        this.chunks = chunks;
+        this.chunkCount = chunkCount;
+        this.size = size;
+        this.frozen = true;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long get(int index) {
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    void set(int index, long value) {
+        writable(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = value;
+    }
+
+    @Override
+    void add(long value) {
+        if (size == chunkCount << CHUNK_SHIFT) {
+            addChunk();
+        }
+        set(size++, value);
+    }
+
+    @Override
+    void insert(int index, long value) {
+        if (index == size) {
+            add(value);
+            return;
+        }
+        add(get(size - 1));
+        // Shift [index, size - 2] up by one, one chunk at a time from the top
+        int hi = size - 1;
+        while (hi > index) {
+            int chunkStart = hi & ~CHUNK_MASK;
+            long[] chunk = writable(hi >>> CHUNK_SHIFT);
+            if (index + 1 > chunkStart) {
+                System.arraycopy(chunk, index - chunkStart, chunk, index + 1 - chunkStart, hi - index);
+                hi = index;
+            } else {
+                System.arraycopy(chunk, 0, chunk, 1, hi - chunkStart);
+                chunk[0] = get(chunkStart - 1);
+                hi = chunkStart - 1;
+            }
+        }
+        set(index, value);
+    }
+
+    @Override
+    void truncate(int newSize) {
+        checkWritable();
+        size = newSize;
+        int needed = (newSize + CHUNK_MASK) >>> CHUNK_SHIFT;
+        Arrays.fill(chunks, needed, chunkCount, null);
+        shared.clear(needed, chunkCount);
+        chunkCount = needed;
+    }
+
+    @Override
+    LongStorage freeze() {
+        shared.set(0, chunkCount);
+        return new HeapLongStorage(Arrays.copyOf(chunks, chunkCount), chunkCount, size);
+    }
+
+    @Override
+    LongStorage newEmpty(int expectedSize) {
+        return new HeapLongStorage(expectedSize);
+    }
+
+    @Override
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_LONGS * Long.BYTES);
+        LongBuffer longs = buf.asLongBuffer();
+        for (int c = 0; c < chunkCount; c++) {
+            int n = Math.min(CHUNK_LONGS, size - (c << CHUNK_SHIFT));
+            longs.clear();
+            longs.put(chunks[c], 0, n);
+            buf.clear().limit(n * Long.BYTES);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+    }
+
+    @Override
+    void readFrom(ReadableByteChannel channel, int count) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_LONGS * Long.BYTES);
+        for (int remaining = count; remaining > 0; ) {
+            if (size == chunkCount << CHUNK_SHIFT) {
+                addChunk();
+            }
+            int offset = size & CHUNK_MASK;
+            int n = Math.min(remaining, CHUNK_LONGS - offset);
+            buf.clear().limit(n * Long.BYTES);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0) {
+                    throw new EOFException("Expected " + remaining + " more values");
+                }
+            }
+            buf.flip();
+            buf.asLongBuffer().get(writable(chunkCount - 1), offset, n);
+            size += n;
+            remaining -= n;
+        }
+    }
+
+    private void addChunk() {
+        checkWritable();
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount + (chunkCount >> 1) + 1);
+        }
+        chunks[chunkCount++] = new long[CHUNK_LONGS];
+    }
+
+    /**
+     * The chunk, first copied if a frozen storage still shares it.
+     */
+    private long[] writable(int c) {
+        checkWritable();
+        if (shared.get(c)) {
+            chunks[c] = chunks[c].clone();
+            shared.clear(c);
+        }
+        return chunks[c];
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Frozen storage is read-only");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.attendance.service;
+
+import com.attendance.model.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataManager that keeps everything in memory and never touches disk.
+ * Useful for tests, benchmarks and throwaway sessions.
+ */
+public class InMemoryDataManager implements DataManager {
+    private List<Student> students = new ArrayList<>();
+    private List<Subject> subjects = new ArrayList<>();
+    private List<TimeSlot> timeSlots = new ArrayList<>();
+    private List<TimetableEntry> timetable = new ArrayList<>();
+    private final Map<AttendanceKey, AttendanceRecord> attendance = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void saveStudents(List<Student> students) {
+        this.students = new ArrayList<>(students);
+    }
+
+    @Override
+    public synchronized List<Student> loadStudents() {
+        return new ArrayList<>(students);
+    }
+
+    @Override
+    public synchronized void saveAttendance(List<AttendanceRecord> records) {
+        attendance.clear();
+        appendAttendance(records);
+    }
+
+    @Override
+    public synchronized List<AttendanceRecord> loadAttendance() {
+        return new ArrayList<>(attendance.values());
+    }
+
+    @Override
+    public boolean supportsIncrementalAttendance() {
+        return true;
+    }
+
+    @Override
+    public synchronized void appendAttendance(List<AttendanceRecord> upserts) {
+        for (AttendanceRecord r : upserts) {
+            attendance.put(AttendanceKey.of(r), r);
+        }
+    }
+
+    @Override
+    public synchronized void deleteAttendanceForStudent(String studentId) {
+        attendance.values().removeIf(r -> r.studentId().equals(studentId));
+    }
+
+    @Override
+    public synchronized void saveSubjects(List<Subject> subjects) {
+        this.subjects = new ArrayList<>(subjects);
+    }
+
+    @Override
+    public synchronized List<Subject> loadSubjects() {
+        return new ArrayList<>(subjects);
+    }
+
+    @Override
+    public synchronized void saveTimeSlots(List<TimeSlot> slots) {
+        this.timeSlots = new ArrayList<>(slots);
+    }
+
+    @Override
+    public synchronized List<TimeSlot> loadTimeSlots() {
+        return new ArrayList<>(timeSlots);
+    }
+
+    @Override
+    public synchronized void saveTimetable(List<TimetableEntry> entries) {
+        this.timetable = new ArrayList<>(entries);
+    }
+
+    @Override
+    public synchronized List<TimetableEntry> loadTimetable() {
+        return new ArrayList<>(timetable);
+    }
+}
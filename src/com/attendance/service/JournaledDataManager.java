@@ -0,0 +1,218 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.*;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataManager decorator that keeps attendance as a base file plus an
+ * append-only journal of upserts and deletes. Each mark appends one small
+ * entry; the journal is replayed on load and folded into the base file once
+ * it grows past a threshold.
+ * Demonstrates: Decorator pattern, DataOutputStream, append-mode files.
+ */
+public class JournaledDataManager implements DataManager {
+    private static final String JOURNAL_FILE = "attendance.journal";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_DELETE_STUDENT = 2;
+
+    private final DataManager base;
+    private final File journalFile;
+    private final int compactionThreshold;
+    private int journalEntries = -1; // unknown until the journal is first read
+
+    public JournaledDataManager(DataManager base) {
+        this(base, JOURNAL_FILE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public JournaledDataManager(DataManager base, String journalFile, int compactionThreshold) {
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Compaction threshold must be positive");
+        }
+        this.base = base;
+        this.journalFile = new File(journalFile);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    // --- Attendance ---
+    @Override
+    public synchronized void saveAttendance(List<AttendanceRecord> records) throws AttendanceException {
+        base.saveAttendance(records);
+        truncateJournal();
+    }
+
+    @Override
+    public synchronized List<AttendanceRecord> loadAttendance() throws AttendanceException {
+        Map<AttendanceKey, AttendanceRecord> state = loadBaseState();
+        boolean intact = replayJournal(state);
+        List<AttendanceRecord> records = new ArrayList<>(state.values());
+
+        // A torn tail (crash mid-append) must not be appended after; fold it away
+        if (!intact || journalEntries >= compactionThreshold) {
+            saveAttendance(records);
+        }
+        return records;
+    }
+
+    @Override
+    public boolean supportsIncrementalAttendance() {
+        return true;
+    }
+
+    @Override
+    public synchronized void appendAttendance(List<AttendanceRecord> upserts) throws AttendanceException {
+        if (upserts.isEmpty()) {
+            return;
+        }
+        writeJournal(out -> {
+            for (AttendanceRecord r : upserts) {
+                out.writeByte(OP_UPSERT);
+                out.writeUTF(r.studentId());
+                out.writeUTF(r.subjectCode());
+                out.writeLong(r.date().toEpochDay());
+                out.writeInt(r.slotNumber());
+                out.writeBoolean(r.present());
+            }
+        }, upserts.size());
+    }
+
+    @Override
+    public synchronized void deleteAttendanceForStudent(String studentId) throws AttendanceException {
+        writeJournal(out -> {
+            out.writeByte(OP_DELETE_STUDENT);
+            out.writeUTF(studentId);
+        }, 1);
+    }
+
+    /**
+     * Folds the journal into the base file and truncates it.
+     */
+    public synchronized void compact() throws AttendanceException {
+        Map<AttendanceKey, AttendanceRecord> state = loadBaseState();
+        replayJournal(state);
+        saveAttendance(new ArrayList<>(state.values()));
+    }
+
+    // --- Delegated entities ---
+    @Override
+    public void saveStudents(List<Student> students) throws AttendanceException {
+        base.saveStudents(students);
+    }
+
+    @Override
+    public List<Student> loadStudents() throws AttendanceException {
+        return base.loadStudents();
+    }
+
+    @Override
+    public void saveSubjects(List<Subject> subjects) throws AttendanceException {
+        base.saveSubjects(subjects);
+    }
+
+    @Override
+    public List<Subject> loadSubjects() throws AttendanceException {
+        return base.loadSubjects();
+    }
+
+    @Override
+    public void saveTimeSlots(List<TimeSlot> slots) throws AttendanceException {
+        base.saveTimeSlots(slots);
+    }
+
+    @Override
+    public List<TimeSlot> loadTimeSlots() throws AttendanceException {
+        return base.loadTimeSlots();
+    }
+
+    @Override
+    public void saveTimetable(List<TimetableEntry> entries) throws AttendanceException {
+        base.saveTimetable(entries);
+    }
+
+    @Override
+    public List<TimetableEntry> loadTimetable() throws AttendanceException {
+        return base.loadTimetable();
+    }
+
+    // --- Journal helpers ---
+    private Map<AttendanceKey, AttendanceRecord> loadBaseState() throws AttendanceException {
+        Map<AttendanceKey, AttendanceRecord> state = new LinkedHashMap<>();
+        for (AttendanceRecord r : base.loadAttendance()) {
+            state.put(AttendanceKey.of(r), r);
+        }
+        return state;
+    }
+
+    /**
+     * Applies journal entries to the given state in order.
+     *
+     * @return false if the journal ended in a partially written entry
+     */
+    private boolean replayJournal(Map<AttendanceKey, AttendanceRecord> state) throws AttendanceException {
+        journalEntries = 0;
+        if (!journalFile.exists()) {
+            return true;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                int op = in.read();
+                if (op < 0) {
+                    return true;
+                }
+                if (op == OP_UPSERT) {
+                    AttendanceRecord r = new AttendanceRecord(in.readUTF(), in.readUTF(),
+                            LocalDate.ofEpochDay(in.readLong()), in.readInt(), in.readBoolean());
+                    state.put(AttendanceKey.of(r), r);
+                } else if (op == OP_DELETE_STUDENT) {
+                    String studentId = in.readUTF();
+                    state.values().removeIf(r -> r.studentId().equals(studentId));
+                } else {
+                    throw new AttendanceException("Corrupt journal entry in " + journalFile);
+                }
+                journalEntries++;
+            }
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to read " + journalFile, e);
+        }
+    }
+
+    private void writeJournal(JournalWriter writer, int entries) throws AttendanceException {
+        if (journalEntries < 0) {
+            // Count existing entries so compaction stays periodic across restarts
+            replayJournal(new LinkedHashMap<>());
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(journalFile, true)))) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to append to " + journalFile, e);
+        }
+        journalEntries += entries;
+        if (journalEntries >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    private void truncateJournal() throws AttendanceException {
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new AttendanceException("Failed to truncate " + journalFile);
+        }
+        journalEntries = 0;
+    }
+
+    @FunctionalInterface
+    private interface JournalWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
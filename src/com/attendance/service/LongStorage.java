@@ -0,0 +1,58 @@
+package com.attendance.service;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Growable sequence of longs backing {@link AttendanceStore}. Implementations
+ * differ only in where the values live: heap arrays or off-heap segments.
+ * Both keep the values in fixed-size chunks so that {@link #freeze()} can
+ * share them with a read-only copy and copy a chunk only when it is next
+ * written.
+ */
+abstract class LongStorage {
+    abstract int size();
+
+    abstract long get(int index);
+
+    abstract void set(int index, long value);
+
+    abstract void add(long value);
+
+    /**
+     * Inserts a value, shifting the values from index onwards up by one.
+     */
+    abstract void insert(int index, long value);
+
+    abstract void truncate(int newSize);
+
+    /**
+     * Returns a read-only copy of the current values that later writes to
+     * this storage do not affect. The copy shares every chunk; this storage
+     * copies a shared chunk before its first write to it, so freezing costs
+     * one reference per chunk rather than a copy of the values.
+     */
+    abstract LongStorage freeze();
+
+    /**
+     * Creates an empty storage of the same kind.
+     */
+    abstract LongStorage newEmpty(int expectedSize);
+
+    /**
+     * Writes the values as big-endian longs.
+     */
+    abstract void writeTo(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Appends count big-endian longs read from the channel.
+     */
+    abstract void readFrom(ReadableByteChannel channel, int count) throws IOException;
+
+    static LongStorage create(StorageMode mode, int expectedSize) {
+        return mode == StorageMode.OFF_HEAP
+                ? new OffHeapLongStorage()
+                : new HeapLongStorage(expectedSize);
+    }
+}
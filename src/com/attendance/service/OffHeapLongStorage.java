@@ -0,0 +1,170 @@
+package com.attendance.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * LongStorage kept outside the Java heap in direct buffers of 4096 longs
+ * (32 KB) each, so very large histories add nothing for the garbage
+ * collector to trace or copy. Segments are big-endian and are written to
+ * disk as-is. Segments shared with a frozen copy are copied on their next
+ * write; at the heap chunk size a mark after a snapshot copies 32 KB, the
+ * same as {@link HeapLongStorage}.
+ */
+final class OffHeapLongStorage extends LongStorage {
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_LONGS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_LONGS - 1;
+
+    private final List<ByteBuffer> segments;
+    private int size;
+    private final BitSet shared = new BitSet();
+    private final boolean frozen;
+
+    OffHeapLongStorage() {
+        segments = new ArrayList<>();
+        frozen = false;
+    }
+
+    private OffHeapLongStorage(List<ByteBuffer> segments, int size) {
+        this.segments = segments;
+        this.size = size;
+        this.frozen = true;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long get(int index) {
+        return segments.get(index >>> SEGMENT_SHIFT).getLong((index & SEGMENT_MASK) << 3);
+    }
+
+    @Override
+    void set(int index, long value) {
+        writable(index >>> SEGMENT_SHIFT).putLong((index & SEGMENT_MASK) << 3, value);
+    }
+
+    @Override
+    void add(long value) {
+        if (size == segments.size() << SEGMENT_SHIFT) {
+            addSegment();
+        }
+        set(size++, value);
+    }
+
+    @Override
+    void insert(int index, long value) {
+        if (index == size) {
+            add(value);
+            return;
+        }
+        add(get(size - 1));
+        // Shift [index, size - 2] up by one, one segment at a time from the top
+        int hi = size - 1;
+        while (hi > index) {
+            int segmentStart = hi & ~SEGMENT_MASK;
+            ByteBuffer segment = writable(hi >>> SEGMENT_SHIFT);
+            int from = Math.max(index, segmentStart);
+            // Overlapping bulk puts behave as if copied through a temporary buffer
+            segment.put((from + 1 - segmentStart) << 3, segment, (from - segmentStart) << 3, (hi - from) << 3);
+            if (from == index) {
+                hi = index;
+            } else {
+                segment.putLong(0, get(segmentStart - 1));
+                hi = segmentStart - 1;
+            }
+        }
+        set(index, value);
+    }
+
+    @Override
+    void truncate(int newSize) {
+        checkWritable();
+        size = newSize;
+        // Release whole segments that are no longer used
+        int needed = (newSize + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+        shared.clear(needed, Math.max(needed, segments.size()));
+        while (segments.size() > needed) {
+            segments.remove(segments.size() - 1);
+        }
+    }
+
+    @Override
+    LongStorage freeze() {
+        shared.set(0, segments.size());
+        return new OffHeapLongStorage(List.copyOf(segments), size);
+    }
+
+    @Override
+    LongStorage newEmpty(int expectedSize) {
+        return new OffHeapLongStorage();
+    }
+
+    @Override
+    void writeTo(WritableByteChannel channel) throws IOException {
+        for (int s = 0; s < segments.size(); s++) {
+            int longs = Math.min(SEGMENT_LONGS, size - (s << SEGMENT_SHIFT));
+            ByteBuffer view = segments.get(s).duplicate();
+            view.clear().limit(longs * Long.BYTES);
+            while (view.hasRemaining()) {
+                channel.write(view);
+            }
+        }
+    }
+
+    @Override
+    void readFrom(ReadableByteChannel channel, int count) throws IOException {
+        for (int remaining = count; remaining > 0; ) {
+            if (size == segments.size() << SEGMENT_SHIFT) {
+                addSegment();
+            }
+            int offset = size & SEGMENT_MASK;
+            int n = Math.min(remaining, SEGMENT_LONGS - offset);
+            ByteBuffer view = writable(segments.size() - 1).duplicate();
+            view.clear().position(offset * Long.BYTES).limit((offset + n) * Long.BYTES);
+            while (view.hasRemaining()) {
+                if (channel.read(view) < 0) {
+                    throw new EOFException("Expected " + remaining + " more values");
+                }
+            }
+            size += n;
+            remaining -= n;
+        }
+    }
+
+    private void addSegment() {
+        checkWritable();
+        segments.add(ByteBuffer.allocateDirect(SEGMENT_LONGS * Long.BYTES));
+    }
+
+    /**
+     * The segment, first copied if a frozen storage still shares it.
+     */
+    private ByteBuffer writable(int s) {
+        checkWritable();
+        ByteBuffer segment = segments.get(s);
+        if (shared.get(s)) {
+            ByteBuffer copy = ByteBuffer.allocateDirect(SEGMENT_LONGS * Long.BYTES);
+            copy.put(segment.duplicate().clear());
+            segments.set(s, copy);
+            shared.clear(s);
+            return copy;
+        }
+        return segment;
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Frozen storage is read-only");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * DataManager decorator that splits attendance into one segment file per
+ * month (attendance/2026-01.dat, ...). A change rewrites only the months it
+ * touches, and range loads read only the overlapping months. Other entities
+ * are delegated unchanged; on first use an existing monolithic attendance
+ * history from the wrapped manager is migrated into segments. The migration
+ * is written to a side directory and renamed into place only once complete,
+ * so a failed migration is simply retried on the next start.
+ * Demonstrates: Partitioning, YearMonth, lazy loading.
+ */
+public class PartitionedDataManager implements DataManager {
+    private static final String ATTENDANCE_DIR = "attendance";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String MIGRATING_SUFFIX = ".migrating";
+    private static final int CACHED_SEGMENTS = 3;
+
+    private final DataManager base;
+    private final File directory;
+    // Last written or loaded content of the most recently used months, where
+    // marks land; a full save skips those that are unchanged
+    private final Map<YearMonth, List<AttendanceRecord>> segments =
+            new LinkedHashMap<>(CACHED_SEGMENTS * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, List<AttendanceRecord>> eldest) {
+                    return size() > CACHED_SEGMENTS;
+                }
+            };
+
+    public PartitionedDataManager(DataManager base) {
+        this(base, ATTENDANCE_DIR);
+    }
+
+    public PartitionedDataManager(DataManager base, String directory) {
+        this.base = base;
+        this.directory = new File(directory);
+    }
+
+    // --- Attendance ---
+    @Override
+    public synchronized void saveAttendance(List<AttendanceRecord> records) throws AttendanceException {
+        migrateIfNeeded();
+        Map<YearMonth, List<AttendanceRecord>> byMonth = new TreeMap<>();
+        for (AttendanceRecord r : records) {
+            byMonth.computeIfAbsent(YearMonth.from(r.date()), k -> new ArrayList<>()).add(r);
+        }
+        for (YearMonth month : listMonths()) {
+            if (!byMonth.containsKey(month)) {
+                deleteSegment(month);
+            }
+        }
+        for (Map.Entry<YearMonth, List<AttendanceRecord>> e : byMonth.entrySet()) {
+            if (!e.getValue().equals(segments.get(e.getKey()))) {
+                writeSegment(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<AttendanceRecord> loadAttendance() throws AttendanceException {
+        return loadAttendance(null, null);
+    }
+
+    @Override
+    public synchronized List<AttendanceRecord> loadAttendance(LocalDate from, LocalDate to)
+            throws AttendanceException {
+        migrateIfNeeded();
+        YearMonth first = from == null ? null : YearMonth.from(from);
+        YearMonth last = to == null ? null : YearMonth.from(to);
+        List<AttendanceRecord> result = new ArrayList<>();
+        for (YearMonth month : listMonths()) {
+            if ((first != null && month.isBefore(first)) || (last != null && month.isAfter(last))) {
+                continue;
+            }
+            for (AttendanceRecord r : readSegment(month)) {
+                if ((from == null || !r.date().isBefore(from)) && (to == null || !r.date().isAfter(to))) {
+                    result.add(r);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supportsIncrementalAttendance() {
+        return true;
+    }
+
+    @Override
+    public synchronized void appendAttendance(List<AttendanceRecord> upserts) throws AttendanceException {
+        migrateIfNeeded();
+        Map<YearMonth, List<AttendanceRecord>> byMonth = new TreeMap<>();
+        for (AttendanceRecord r : upserts) {
+            byMonth.computeIfAbsent(YearMonth.from(r.date()), k -> new ArrayList<>()).add(r);
+        }
+        for (Map.Entry<YearMonth, List<AttendanceRecord>> e : byMonth.entrySet()) {
+            Map<AttendanceKey, AttendanceRecord> segment = new LinkedHashMap<>();
+            for (AttendanceRecord r : readSegment(e.getKey())) {
+                segment.put(AttendanceKey.of(r), r);
+            }
+            for (AttendanceRecord r : e.getValue()) {
+                segment.put(AttendanceKey.of(r), r);
+            }
+            writeSegment(e.getKey(), new ArrayList<>(segment.values()));
+        }
+    }
+
+    @Override
+    public synchronized void deleteAttendanceForStudent(String studentId) throws AttendanceException {
+        migrateIfNeeded();
+        for (YearMonth month : listMonths()) {
+            List<AttendanceRecord> segment = new ArrayList<>(readSegment(month));
+            if (segment.removeIf(r -> r.studentId().equals(studentId))) {
+                if (segment.isEmpty()) {
+                    deleteSegment(month);
+                } else {
+                    writeSegment(month, segment);
+                }
+            }
+        }
+    }
+
+    // --- Delegated entities ---
+    @Override
+    public void saveStudents(List<Student> students) throws AttendanceException {
+        base.saveStudents(students);
+    }
+
+    @Override
+    public List<Student> loadStudents() throws AttendanceException {
+        return base.loadStudents();
+    }
+
+    @Override
+    public void saveSubjects(List<Subject> subjects) throws AttendanceException {
+        base.saveSubjects(subjects);
+    }
+
+    @Override
+    public List<Subject> loadSubjects() throws AttendanceException {
+        return base.loadSubjects();
+    }
+
+    @Override
+    public void saveTimeSlots(List<TimeSlot> slots) throws AttendanceException {
+        base.saveTimeSlots(slots);
+    }
+
+    @Override
+    public List<TimeSlot> loadTimeSlots() throws AttendanceException {
+        return base.loadTimeSlots();
+    }
+
+    @Override
+    public void saveTimetable(List<TimetableEntry> entries) throws AttendanceException {
+        base.saveTimetable(entries);
+    }
+
+    @Override
+    public List<TimetableEntry> loadTimetable() throws AttendanceException {
+        return base.loadTimetable();
+    }
+
+    // --- Segment helpers ---
+    private void migrateIfNeeded() throws AttendanceException {
+        if (directory.isDirectory()) {
+            return;
+        }
+        File staging = new File(directory.getPath() + MIGRATING_SUFFIX);
+        deleteTree(staging); // left over from a failed attempt
+        if (!staging.mkdirs()) {
+            throw new AttendanceException("Failed to create " + staging);
+        }
+        Map<YearMonth, List<AttendanceRecord>> byMonth = new TreeMap<>();
+        for (AttendanceRecord r : base.loadAttendance()) {
+            byMonth.computeIfAbsent(YearMonth.from(r.date()), k -> new ArrayList<>()).add(r);
+        }
+        for (Map.Entry<YearMonth, List<AttendanceRecord>> e : byMonth.entrySet()) {
+            writeFile(new File(staging, e.getKey() + SEGMENT_SUFFIX), e.getValue());
+        }
+        try {
+            Files.move(staging.toPath(), directory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to move " + staging + " to " + directory, e);
+        }
+    }
+
+    private static void deleteTree(File dir) throws AttendanceException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (!f.delete()) {
+                    throw new AttendanceException("Failed to delete " + f);
+                }
+            }
+        }
+        if (dir.exists() && !dir.delete()) {
+            throw new AttendanceException("Failed to delete " + dir);
+        }
+    }
+
+    private List<YearMonth> listMonths() {
+        String[] names = directory.list((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        List<YearMonth> months = new ArrayList<>();
+        if (names != null) {
+            for (String name : names) {
+                try {
+                    months.add(YearMonth.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (RuntimeException ignored) {
+                    // Not a segment file
+                }
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    private File segmentFile(YearMonth month) {
+        return new File(directory, month + SEGMENT_SUFFIX);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AttendanceRecord> readSegment(YearMonth month) throws AttendanceException {
+        List<AttendanceRecord> cached = segments.get(month);
+        if (cached != null) {
+            return cached;
+        }
+        File file = segmentFile(month);
+        if (!file.exists()) {
+            return List.of();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            List<AttendanceRecord> segment = (List<AttendanceRecord>) ois.readObject();
+            segments.put(month, segment);
+            return segment;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new AttendanceException("Failed to load from " + file, e);
+        }
+    }
+
+    private void writeSegment(YearMonth month, List<AttendanceRecord> records) throws AttendanceException {
+        List<AttendanceRecord> copy = new ArrayList<>(records);
+        segments.remove(month);
+        writeFile(segmentFile(month), copy);
+        segments.put(month, copy);
+    }
+
+    private static void writeFile(File file, List<AttendanceRecord> records) throws AttendanceException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            oos.writeObject(records);
+        } catch (IOException e) {
+            throw new AttendanceException("Failed to save to " + file, e);
+        }
+    }
+
+    private void deleteSegment(YearMonth month) throws AttendanceException {
+        File file = segmentFile(month);
+        if (file.exists() && !file.delete()) {
+            throw new AttendanceException("Failed to delete " + file);
+        }
+        segments.remove(month);
+    }
+}
@@ -0,0 +1,215 @@
+package com.attendance.service;
+
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Aggregates the packed attendance store into report matrices. Large stores
+ * are split into position ranges whose partial counts are computed on a
+ * ForkJoinPool and summed; below the sequential threshold, or with a
+ * parallelism of 1, the scan runs on the calling thread. An engine whose
+ * parallelism matches the common pool shares it; any other engine owns a pool
+ * that {@link #shutdown} releases.
+ * Demonstrates: Fork/Join framework, RecursiveTask, divide and conquer.
+ */
+class ReportEngine {
+    static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    private final ForkJoinPool pool; // null when reports always run sequentially
+    private final boolean ownsPool; // false for the shared common pool
+    private final int parallelism;
+    private final int sequentialThreshold;
+
+    ReportEngine(int parallelism, int sequentialThreshold) {
+        if (parallelism < 1 || sequentialThreshold < 1) {
+            throw new IllegalArgumentException("Parallelism and threshold must be positive");
+        }
+        this.parallelism = parallelism;
+        this.sequentialThreshold = sequentialThreshold;
+        this.ownsPool = parallelism > 1 && parallelism != ForkJoinPool.getCommonPoolParallelism();
+        this.pool = parallelism == 1 ? null : ownsPool ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * An engine on the common pool, which needs no shutdown.
+     */
+    static ReportEngine shared() {
+        return new ReportEngine(ForkJoinPool.getCommonPoolParallelism(), DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Builds the student x subject matrix. Records of unknown students or
+     * subjects are ignored.
+     */
+    SubjectAttendanceMatrix subjectMatrix(List<Student> students, List<Subject> subjects, AttendanceStore store) {
+        return subjectMatrix(students, subjects, store, 0, store.size());
+    }
+
+    /**
+     * Builds the matrix over the records at store positions [lo, hi), e.g. a
+     * date range resolved with {@link AttendanceStore#startOf}.
+     */
+    SubjectAttendanceMatrix subjectMatrix(List<Student> students, List<Subject> subjects, AttendanceStore store,
+            int lo, int hi) {
+        Counts counts = aggregate(new Layout(students, subjects, store), store, lo, hi);
+        return new SubjectAttendanceMatrix(List.copyOf(students), List.copyOf(subjects),
+                counts.present, counts.total);
+    }
+
+    /**
+     * Builds the full report: the subject matrix plus each student's overall
+     * percentage, which counts all of the student's records, including those
+     * in subjects that are no longer listed.
+     */
+    AttendanceReport report(long version, List<Student> students, List<Subject> subjects, AttendanceStore store) {
+        return report(version, students, subjects, store, 0, store.size());
+    }
+
+    /**
+     * Builds the report over the records at store positions [lo, hi), with
+     * overall percentages counted the same way as the full report.
+     */
+    AttendanceReport report(long version, List<Student> students, List<Subject> subjects, AttendanceStore store,
+            int lo, int hi) {
+        Counts counts = aggregate(new Layout(students, subjects, store), store, lo, hi);
+        double[] overall = new double[students.size()];
+        for (int row = 0; row < overall.length; row++) {
+            int total = counts.rowTotal[row];
+            overall[row] = total == 0 ? 0.0 : (counts.rowPresent[row] * 100.0) / total;
+        }
+        SubjectAttendanceMatrix matrix = new SubjectAttendanceMatrix(List.copyOf(students), List.copyOf(subjects),
+                counts.present, counts.total);
+        return new AttendanceReport(version, matrix, overall);
+    }
+
+    private Counts aggregate(Layout layout, AttendanceStore store, int lo, int hi) {
+        int size = hi - lo;
+        if (pool == null || size < sequentialThreshold) {
+            return layout.accumulate(store, lo, hi);
+        }
+        // A few leaves per worker keeps the pool busy without allocating a
+        // partial matrix for every small chunk
+        int leafSize = Math.max(sequentialThreshold, (size + parallelism * 4 - 1) / (parallelism * 4));
+        try {
+            return pool.invoke(new ChunkTask(layout, store, lo, hi, leafSize));
+        } catch (RejectedExecutionException e) {
+            // The engine was replaced and shut down while this report started
+            return layout.accumulate(store, lo, hi);
+        }
+    }
+
+    void shutdown() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Maps dictionary ids to matrix rows and columns, so scans do no string
+     * lookups.
+     */
+    private static final class Layout {
+        final int[] rowOf;
+        final int[] colOf;
+        final int width;
+        final int rows;
+        final int cells;
+
+        Layout(List<Student> students, List<Subject> subjects, AttendanceStore store) {
+            rowOf = new int[store.studentDictionarySize()];
+            Arrays.fill(rowOf, -1);
+            for (int i = 0; i < students.size(); i++) {
+                int id = store.studentIndex(students.get(i).id());
+                if (id >= 0) {
+                    rowOf[id] = i;
+                }
+            }
+            colOf = new int[store.subjectDictionarySize()];
+            Arrays.fill(colOf, -1);
+            for (int i = 0; i < subjects.size(); i++) {
+                int id = store.subjectIndex(subjects.get(i).code());
+                if (id >= 0) {
+                    colOf[id] = i;
+                }
+            }
+            width = subjects.size();
+            rows = students.size();
+            cells = rows * width;
+        }
+
+        Counts accumulate(AttendanceStore store, int lo, int hi) {
+            Counts counts = new Counts(new int[cells], new int[cells], new int[rows], new int[rows]);
+            store.scan(lo, hi, (student, subject, epochDay, slot, present) -> {
+                int row = rowOf[student];
+                if (row < 0) {
+                    return;
+                }
+                counts.rowTotal[row]++;
+                if (present) {
+                    counts.rowPresent[row]++;
+                }
+                int col = colOf[subject];
+                if (col < 0) {
+                    return;
+                }
+                int cell = row * width + col;
+                counts.total[cell]++;
+                if (present) {
+                    counts.present[cell]++;
+                }
+            });
+            return counts;
+        }
+    }
+
+    /**
+     * Per-cell counts plus per-row counts over all of a row's records.
+     */
+    private record Counts(int[] present, int[] total, int[] rowPresent, int[] rowTotal) {
+        Counts mergeFrom(Counts other) {
+            for (int i = 0; i < total.length; i++) {
+                present[i] += other.present[i];
+                total[i] += other.total[i];
+            }
+            for (int i = 0; i < rowTotal.length; i++) {
+                rowPresent[i] += other.rowPresent[i];
+                rowTotal[i] += other.rowTotal[i];
+            }
+            return this;
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Counts> {
+        private final Layout layout;
+        private final AttendanceStore store;
+        private final int lo;
+        private final int hi;
+        private final int leafSize;
+
+        ChunkTask(Layout layout, AttendanceStore store, int lo, int hi, int leafSize) {
+            this.layout = layout;
+            this.store = store;
+            this.lo = lo;
+            this.hi = hi;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (hi - lo <= leafSize) {
+                return layout.accumulate(store, lo, hi);
+            }
+            int mid = (lo + hi) >>> 1;
+            ChunkTask left = new ChunkTask(layout, store, lo, mid, leafSize);
+            left.fork();
+            Counts right = new ChunkTask(layout, store, mid, hi, leafSize).compute();
+            return left.join().mergeFrom(right);
+        }
+    }
+}
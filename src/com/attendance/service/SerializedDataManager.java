@@ -81,7 +81,7 @@ public class SerializedDataManager implements DataManager {
 
     // --- Generic helpers ---
     private <T> void saveList(String filename, List<T> list) throws AttendanceException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
             oos.writeObject(new ArrayList<>(list));
         } catch (IOException e) {
             throw new AttendanceException("Failed to save to " + filename, e);
@@ -94,7 +94,7 @@ public class SerializedDataManager implements DataManager {
         if (!file.exists()) {
             return new ArrayList<>();
         }
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
             return (List<T>) ois.readObject();
         } catch (IOException | ClassNotFoundException e) {
             throw new AttendanceException("Failed to load from " + filename, e);
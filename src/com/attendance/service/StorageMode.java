@@ -0,0 +1,11 @@
+package com.attendance.service;
+
+/**
+ * Where the packed attendance records are kept.
+ */
+public enum StorageMode {
+    /** A single long[] on the Java heap. */
+    HEAP,
+    /** Fixed-size direct buffers outside the Java heap, invisible to GC marking. */
+    OFF_HEAP
+}
@@ -0,0 +1,80 @@
+package com.attendance.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only mapping between strings and dense int ids, so each distinct
+ * student id or subject code is stored once however many records use it.
+ * Because ids are never reassigned, a {@link #snapshot()} is just the
+ * current size: it shares the map and array with the live dictionary and
+ * ignores ids added after it was taken.
+ */
+final class StringDictionary {
+    private final int capacity;
+    private final Map<String, Integer> ids;
+    private String[] values;
+    private int size;
+    private final boolean frozen;
+
+    /**
+     * @param capacity maximum number of distinct strings
+     */
+    StringDictionary(int capacity) {
+        this(capacity, new ConcurrentHashMap<>(), new String[16], 0, false);
+    }
+
+    private StringDictionary(int capacity, Map<String, Integer> ids, String[] values, int size, boolean frozen) {
+        this.capacity = capacity;
+        this.ids = ids;
+        this.values = values;
+        this.size = size;
+        this.frozen = frozen;
+    }
+
+    /**
+     * Returns the id of the string, assigning the next free id if it is new.
+     */
+    int idOf(String value) {
+        Integer id = ids.get(value);
+        if (id != null && id < size) {
+            return id;
+        }
+        if (frozen) {
+            throw new UnsupportedOperationException("Dictionary snapshot is read-only");
+        }
+        if (size == capacity) {
+            throw new IllegalStateException("Dictionary full: more than " + capacity + " distinct values");
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.min(capacity, size * 2));
+        }
+        values[size] = value;
+        ids.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Returns the id of the string, or -1 if it was never added.
+     */
+    int find(String value) {
+        Integer id = ids.get(value);
+        return id == null || id >= size ? -1 : id;
+    }
+
+    String get(int id) {
+        return values[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Read-only view of the ids assigned so far.
+     */
+    StringDictionary snapshot() {
+        return new StringDictionary(capacity, ids, values, size, true);
+    }
+}
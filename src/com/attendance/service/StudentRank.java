@@ -0,0 +1,10 @@
+package com.attendance.service;
+
+import com.attendance.model.Student;
+
+/**
+ * A student with their current attendance percentage, as read from the
+ * ranking index.
+ */
+public record StudentRank(Student student, double percentage) {
+}
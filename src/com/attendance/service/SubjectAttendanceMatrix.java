@@ -0,0 +1,66 @@
+package com.attendance.service;
+
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+
+import java.util.List;
+
+/**
+ * Student x subject attendance counts held in two flat int arrays (row-major,
+ * one row per student). Built by {@link ReportEngine} in a single scan of the
+ * packed records, so a full subject-wise report costs O(records) instead of
+ * O(students x subjects x records), and cells are read as primitives instead
+ * of boxed Doubles.
+ */
+public final class SubjectAttendanceMatrix {
+    private final List<Student> students;
+    private final List<Subject> subjects;
+    private final int[] present;
+    private final int[] total;
+
+    SubjectAttendanceMatrix(List<Student> students, List<Subject> subjects, int[] present, int[] total) {
+        this.students = students;
+        this.subjects = subjects;
+        this.present = present;
+        this.total = total;
+    }
+
+    public int studentCount() {
+        return students.size();
+    }
+
+    public int subjectCount() {
+        return subjects.size();
+    }
+
+    public Student student(int row) {
+        return students.get(row);
+    }
+
+    public Subject subject(int col) {
+        return subjects.get(col);
+    }
+
+    public int present(int row, int col) {
+        return present[cell(row, col)];
+    }
+
+    public int total(int row, int col) {
+        return total[cell(row, col)];
+    }
+
+    /**
+     * Attendance percentage of a cell; 0.0 when nothing was marked.
+     */
+    public double percentage(int row, int col) {
+        int cell = cell(row, col);
+        return total[cell] == 0 ? 0.0 : (present[cell] * 100.0) / total[cell];
+    }
+
+    private int cell(int row, int col) {
+        if (col < 0 || col >= subjects.size()) {
+            throw new IndexOutOfBoundsException("Subject column " + col);
+        }
+        return row * subjects.size() + col;
+    }
+}
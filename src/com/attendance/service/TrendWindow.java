@@ -0,0 +1,15 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+
+/**
+ * Attendance counts over the dates [from, to].
+ */
+public record TrendWindow(LocalDate from, LocalDate to, int present, int total) {
+    /**
+     * Attendance percentage in the window; 0.0 when nothing was marked.
+     */
+    public double percentage() {
+        return total == 0 ? 0.0 : (present * 100.0) / total;
+    }
+}
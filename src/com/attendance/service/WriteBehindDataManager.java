@@ -0,0 +1,300 @@
+package com.attendance.service;
+
+import com.attendance.exception.AttendanceException;
+import com.attendance.model.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * DataManager decorator that moves saves off the caller's thread. Saves are
+ * queued and a dedicated writer thread flushes them after a latency window,
+ * so a burst of saves to the same file costs a single write. Loads, flush()
+ * and close() wait for queued writes first. A failed write goes back to the
+ * front of the queue and is retried; until a flush writes everything, saves
+ * are still queued but report the failure.
+ * Demonstrates: ScheduledExecutorService, write-behind caching, AutoCloseable.
+ */
+public class WriteBehindDataManager implements DataManager, AutoCloseable {
+    private static final long DEFAULT_LATENCY_MILLIS = 200;
+
+    private final DataManager delegate;
+    private final long latencyMillis;
+    private final ScheduledExecutorService writer;
+
+    // Pending writes, guarded by this; each full save supersedes earlier ones
+    private List<Student> pendingStudents;
+    private List<Subject> pendingSubjects;
+    private List<TimeSlot> pendingTimeSlots;
+    private List<TimetableEntry> pendingTimetable;
+    private List<AttendanceRecord> pendingAttendance;
+    private final List<AttendanceOp> pendingAttendanceOps = new ArrayList<>();
+    private boolean flushScheduled;
+    private AttendanceException failure; // last write error, cleared once a flush writes everything
+
+    public WriteBehindDataManager(DataManager delegate) {
+        this(delegate, DEFAULT_LATENCY_MILLIS);
+    }
+
+    public WriteBehindDataManager(DataManager delegate, long latencyMillis) {
+        if (latencyMillis < 0) {
+            throw new IllegalArgumentException("Latency window cannot be negative");
+        }
+        this.delegate = delegate;
+        this.latencyMillis = latencyMillis;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "datamanager-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // --- Queued saves ---
+    @Override
+    public synchronized void saveStudents(List<Student> students) throws AttendanceException {
+        pendingStudents = new ArrayList<>(students);
+        scheduleFlush();
+        checkFailure();
+    }
+
+    @Override
+    public synchronized void saveSubjects(List<Subject> subjects) throws AttendanceException {
+        pendingSubjects = new ArrayList<>(subjects);
+        scheduleFlush();
+        checkFailure();
+    }
+
+    @Override
+    public synchronized void saveTimeSlots(List<TimeSlot> slots) throws AttendanceException {
+        pendingTimeSlots = new ArrayList<>(slots);
+        scheduleFlush();
+        checkFailure();
+    }
+
+    @Override
+    public synchronized void saveTimetable(List<TimetableEntry> entries) throws AttendanceException {
+        pendingTimetable = new ArrayList<>(entries);
+        scheduleFlush();
+        checkFailure();
+    }
+
+    @Override
+    public synchronized void saveAttendance(List<AttendanceRecord> records) throws AttendanceException {
+        pendingAttendance = new ArrayList<>(records);
+        pendingAttendanceOps.clear();
+        scheduleFlush();
+        checkFailure();
+    }
+
+    @Override
+    public boolean supportsIncrementalAttendance() {
+        return delegate.supportsIncrementalAttendance();
+    }
+
+    @Override
+    public synchronized void appendAttendance(List<AttendanceRecord> upserts) throws AttendanceException {
+        int last = pendingAttendanceOps.size() - 1;
+        if (last >= 0 && pendingAttendanceOps.get(last).upserts() != null) {
+            pendingAttendanceOps.get(last).upserts().addAll(upserts);
+        } else {
+            pendingAttendanceOps.add(new AttendanceOp(new ArrayList<>(upserts), null));
+        }
+        scheduleFlush();
+        checkFailure();
+    }
+
+    @Override
+    public synchronized void deleteAttendanceForStudent(String studentId) throws AttendanceException {
+        pendingAttendanceOps.add(new AttendanceOp(null, studentId));
+        scheduleFlush();
+        checkFailure();
+    }
+
+    // --- Loads see every queued write ---
+    @Override
+    public List<Student> loadStudents() throws AttendanceException {
+        flush();
+        return delegate.loadStudents();
+    }
+
+    @Override
+    public List<Subject> loadSubjects() throws AttendanceException {
+        flush();
+        return delegate.loadSubjects();
+    }
+
+    @Override
+    public List<TimeSlot> loadTimeSlots() throws AttendanceException {
+        flush();
+        return delegate.loadTimeSlots();
+    }
+
+    @Override
+    public List<TimetableEntry> loadTimetable() throws AttendanceException {
+        flush();
+        return delegate.loadTimetable();
+    }
+
+    @Override
+    public List<AttendanceRecord> loadAttendance() throws AttendanceException {
+        flush();
+        return delegate.loadAttendance();
+    }
+
+    @Override
+    public List<AttendanceRecord> loadAttendance(LocalDate from, LocalDate to) throws AttendanceException {
+        flush();
+        return delegate.loadAttendance(from, to);
+    }
+
+    // --- Lifecycle ---
+
+    /**
+     * Writes every queued save now and waits for it to complete.
+     *
+     * @throws AttendanceException if a write failed; the unwritten saves stay
+     *                             queued for the next attempt
+     */
+    public void flush() throws AttendanceException {
+        try {
+            writer.submit(this::writePending).get();
+        } catch (RejectedExecutionException e) {
+            throw new AttendanceException("Writer has been closed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AttendanceException("Interrupted while flushing", e);
+        } catch (ExecutionException e) {
+            throw new AttendanceException("Flush failed", e.getCause());
+        }
+        synchronized (this) {
+            checkFailure();
+        }
+    }
+
+    /**
+     * Flushes queued saves and stops the writer thread.
+     */
+    @Override
+    public void close() throws AttendanceException {
+        try {
+            flush();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    // --- Writer thread ---
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.schedule(this::writePending, latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkFailure() throws AttendanceException {
+        if (failure != null) {
+            throw new AttendanceException("Background save failed, will retry: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void writePending() {
+        List<Student> students;
+        List<Subject> subjects;
+        List<TimeSlot> slots;
+        List<TimetableEntry> timetable;
+        List<AttendanceRecord> attendance;
+        List<AttendanceOp> ops;
+        synchronized (this) {
+            students = pendingStudents;
+            subjects = pendingSubjects;
+            slots = pendingTimeSlots;
+            timetable = pendingTimetable;
+            attendance = pendingAttendance;
+            ops = new ArrayList<>(pendingAttendanceOps);
+            pendingStudents = null;
+            pendingSubjects = null;
+            pendingTimeSlots = null;
+            pendingTimetable = null;
+            pendingAttendance = null;
+            pendingAttendanceOps.clear();
+            flushScheduled = false;
+        }
+
+        // Each step clears its local once written, so a failure knows what is left
+        int opsWritten = 0;
+        try {
+            if (students != null) {
+                delegate.saveStudents(students);
+                students = null;
+            }
+            if (subjects != null) {
+                delegate.saveSubjects(subjects);
+                subjects = null;
+            }
+            if (slots != null) {
+                delegate.saveTimeSlots(slots);
+                slots = null;
+            }
+            if (timetable != null) {
+                delegate.saveTimetable(timetable);
+                timetable = null;
+            }
+            if (attendance != null) {
+                delegate.saveAttendance(attendance);
+                attendance = null;
+            }
+            for (AttendanceOp op : ops) {
+                if (op.upserts() != null) {
+                    delegate.appendAttendance(op.upserts());
+                } else {
+                    delegate.deleteAttendanceForStudent(op.deletedStudentId());
+                }
+                opsWritten++;
+            }
+            synchronized (this) {
+                failure = null;
+            }
+        } catch (AttendanceException | RuntimeException e) {
+            // Unchecked store errors must not lose the batch or kill the scheduled flush either
+            synchronized (this) {
+                failure = e instanceof AttendanceException ae ? ae : new AttendanceException(String.valueOf(e), e);
+                requeue(students, subjects, slots, timetable, attendance, ops.subList(opsWritten, ops.size()));
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * Puts unwritten saves back in front of anything queued since, unless a
+     * newer full save of the same data already replaces them.
+     */
+    private void requeue(List<Student> students, List<Subject> subjects, List<TimeSlot> slots,
+            List<TimetableEntry> timetable, List<AttendanceRecord> attendance, List<AttendanceOp> ops) {
+        if (pendingStudents == null) {
+            pendingStudents = students;
+        }
+        if (pendingSubjects == null) {
+            pendingSubjects = subjects;
+        }
+        if (pendingTimeSlots == null) {
+            pendingTimeSlots = slots;
+        }
+        if (pendingTimetable == null) {
+            pendingTimetable = timetable;
+        }
+        if (pendingAttendance == null) {
+            // A newer saveAttendance would have set pendingAttendance and dropped these ops
+            pendingAttendance = attendance;
+            pendingAttendanceOps.addAll(0, ops);
+        }
+    }
+
+    /**
+     * Queued incremental attendance change: either a run of upserts or the
+     * deletion of one student's records.
+     */
+    private record AttendanceOp(List<AttendanceRecord> upserts, String deletedStudentId) {
+    }
+}
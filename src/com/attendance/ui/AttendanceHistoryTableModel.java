@@ -0,0 +1,479 @@
+package com.attendance.ui;
+
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.Student;
+import com.attendance.model.Subject;
+import com.attendance.service.AttendanceEvent;
+import com.attendance.service.AttendanceService;
+import com.attendance.service.AttendanceSnapshot;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Attendance history rows read straight from a service snapshot. Nothing is
+ * copied per row: the table asks for the rows it paints and each one is
+ * decoded from the packed store on demand, so scrolling a million records
+ * costs the same as scrolling a hundred. Filtering and sorting keep only an
+ * int[] of record positions, and names come from lookup maps rebuilt when
+ * the student or subject lists change. Change events insert or update the
+ * affected rows without reloading.
+ * Demonstrates: AbstractTableModel, lazy loading, primitive sorting.
+ */
+public class AttendanceHistoryTableModel extends AbstractTableModel {
+    public static final int STUDENT_COLUMN = 0;
+    public static final int SUBJECT_COLUMN = 1;
+    public static final int DATE_COLUMN = 2;
+    public static final int SLOT_COLUMN = 3;
+    public static final int STATUS_COLUMN = 4;
+
+    private static final String[] COLUMNS = { "Student", "Subject", "Date", "Slot", "Status" };
+    private static final String UNKNOWN_STUDENT = "Unknown";
+
+    private final AttendanceService service;
+    private AttendanceSnapshot snapshot;
+    private List<AttendanceRecord> records; // newest first, decoded on read
+
+    // Record positions in display order; null shows every record in order
+    private int[] view;
+    private int viewSize;
+
+    private String filter = ""; // lower-case fragment of the student name
+    private int sortColumn = -1;
+    private boolean ascending = true;
+
+    // Lists the name maps were built from; snapshots reuse them until the catalog changes
+    private List<Student> namedStudents;
+    private List<Subject> namedSubjects;
+    private final Map<String, String> studentNames = new HashMap<>();
+    private final Map<String, String> subjectNames = new HashMap<>();
+    private Set<String> filteredStudents = Set.of();
+
+    // The table reads a row one cell at a time, so keep its record decoded
+    private int cachedPosition = -1;
+    private AttendanceRecord cachedRecord;
+
+    public AttendanceHistoryTableModel(AttendanceService service) {
+        this.service = service;
+        reload();
+    }
+
+    /**
+     * Shows the service's current data, dropping any incremental state.
+     */
+    public void reload() {
+        snapshot = service.getSnapshot();
+        records = snapshot.attendanceNewestFirst();
+        refreshNames();
+        rebuildView();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Shows only records of students whose name contains the text, ignoring
+     * case; an empty text shows everyone.
+     */
+    public void setStudentFilter(String text) {
+        String fragment = text == null ? "" : text.toLowerCase();
+        if (fragment.equals(filter)) {
+            return;
+        }
+        filter = fragment;
+        filteredStudents = matchingStudents();
+        rebuildView();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sorts by the column, ascending, or flips the order if it is already
+     * the sort column. Equal values keep newest-first order.
+     */
+    public void sortBy(int column) {
+        if (column < 0 || column >= COLUMNS.length) {
+            throw new IllegalArgumentException("No such column: " + column);
+        }
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        rebuildView();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Back to newest-first order.
+     */
+    public void clearSort() {
+        sortColumn = -1;
+        ascending = true;
+        rebuildView();
+        fireTableDataChanged();
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public AttendanceRecord getRecordAt(int row) {
+        int position = view == null ? row : view[row];
+        if (position != cachedPosition) {
+            cachedRecord = records.get(position);
+            cachedPosition = position;
+        }
+        return cachedRecord;
+    }
+
+    @Override
+    public int getRowCount() {
+        return view == null ? records.size() : viewSize;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        AttendanceRecord r = getRecordAt(row);
+        return switch (column) {
+            case STUDENT_COLUMN -> studentName(r.studentId());
+            case SUBJECT_COLUMN -> subjectName(r.subjectCode());
+            case DATE_COLUMN -> r.date().toString();
+            case SLOT_COLUMN -> r.slotNumber();
+            default -> r.present() ? "Present" : "Absent";
+        };
+    }
+
+    // --- Change events ---
+
+    /**
+     * Applies a batch of service changes. Marks become single row inserts
+     * and updates; removing a student or a bulk reload shows the current
+     * data again. Call on the EDT.
+     */
+    public void apply(List<AttendanceEvent> events) {
+        Map<RecordKey, Boolean> upserts = new LinkedHashMap<>(); // key -> new in this batch
+        boolean catalogChanged = false;
+        for (AttendanceEvent event : events) {
+            if (event instanceof AttendanceEvent.RecordUpserted upserted) {
+                AttendanceRecord r = upserted.record();
+                upserts.putIfAbsent(new RecordKey(r.studentId(), r.date(), r.slotNumber()),
+                        upserted.replaced() == null);
+            } else if (event instanceof AttendanceEvent.StudentRemoved
+                    || event instanceof AttendanceEvent.AttendanceReloaded) {
+                reload();
+                return;
+            } else if (event instanceof AttendanceEvent.StudentAdded
+                    || event instanceof AttendanceEvent.SubjectAdded
+                    || event instanceof AttendanceEvent.SubjectRemoved) {
+                catalogChanged = true;
+            }
+        }
+
+        AttendanceSnapshot next = service.getSnapshot();
+        if (next.version() == snapshot.version()) {
+            return; // an earlier reload already shows these changes
+        }
+        int inserted = (int) upserts.values().stream().filter(isNew -> isNew).count();
+        boolean sortedByName = sortColumn == STUDENT_COLUMN || sortColumn == SUBJECT_COLUMN;
+        if (next.attendanceCount() != records.size() + inserted || (catalogChanged && sortedByName)) {
+            // Writes whose events are still queued already show in the snapshot
+            reload();
+            return;
+        }
+
+        int[] insertedAt = new int[inserted];
+        int[] updatedAt = new int[upserts.size() - inserted];
+        int ins = 0;
+        int upd = 0;
+        for (Map.Entry<RecordKey, Boolean> e : upserts.entrySet()) {
+            RecordKey key = e.getKey();
+            int position = next.indexNewestFirst(key.studentId(), key.date(), key.slotNumber());
+            if (position < 0) {
+                reload();
+                return;
+            }
+            if (e.getValue()) {
+                insertedAt[ins++] = position;
+            } else {
+                updatedAt[upd++] = position;
+            }
+        }
+        // Inserting at final positions in ascending order keeps every step consistent
+        Arrays.sort(insertedAt);
+        if (view != null) {
+            shiftView(insertedAt);
+        }
+
+        snapshot = next;
+        records = next.attendanceNewestFirst();
+        cachedPosition = -1;
+        boolean namesChanged = refreshNames();
+
+        for (int position : insertedAt) {
+            if (view == null) {
+                fireTableRowsInserted(position, position);
+            } else if (matches(records.get(position))) {
+                insertIntoView(position);
+            }
+        }
+        for (int position : updatedAt) {
+            if (view == null) {
+                fireTableRowsUpdated(position, position);
+            } else {
+                updateInView(position);
+            }
+        }
+        if (namesChanged && getRowCount() > 0) {
+            fireTableRowsUpdated(0, getRowCount() - 1);
+        }
+    }
+
+    /**
+     * Moves each old position past the records inserted before it. The r-th
+     * inserted position p lands before every old position >= p - r.
+     */
+    private void shiftView(int[] insertedAt) {
+        int[] firstShifted = new int[insertedAt.length];
+        for (int r = 0; r < insertedAt.length; r++) {
+            firstShifted[r] = insertedAt[r] - r;
+        }
+        for (int i = 0; i < viewSize; i++) {
+            int old = view[i];
+            int lo = 0;
+            int hi = firstShifted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (firstShifted[mid] <= old) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            view[i] = old + lo;
+        }
+    }
+
+    private void insertIntoView(int position) {
+        int at;
+        if (sortColumn < 0) {
+            at = -(Arrays.binarySearch(view, 0, viewSize, position) + 1);
+        } else {
+            AttendanceRecord r = records.get(position);
+            int lo = 0;
+            int hi = viewSize;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(view[mid], records.get(view[mid]), position, r) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            at = lo;
+        }
+        if (viewSize == view.length) {
+            view = Arrays.copyOf(view, Math.max(16, viewSize + (viewSize >> 1)));
+        }
+        System.arraycopy(view, at, view, at + 1, viewSize - at);
+        view[at] = position;
+        viewSize++;
+        fireTableRowsInserted(at, at);
+    }
+
+    private void updateInView(int position) {
+        int at = -1;
+        if (sortColumn < 0) {
+            at = Arrays.binarySearch(view, 0, viewSize, position);
+        } else {
+            for (int i = 0; i < viewSize; i++) {
+                if (view[i] == position) {
+                    at = i;
+                    break;
+                }
+            }
+        }
+        if (at < 0) {
+            return; // filtered out; the student, and so the filter result, did not change
+        }
+        if (sortColumn == SUBJECT_COLUMN || sortColumn == STATUS_COLUMN) {
+            // The sort value may have changed, so the row may move
+            System.arraycopy(view, at + 1, view, at, viewSize - at - 1);
+            viewSize--;
+            fireTableRowsDeleted(at, at);
+            insertIntoView(position);
+        } else {
+            fireTableRowsUpdated(at, at);
+        }
+    }
+
+    // --- View building ---
+
+    private void rebuildView() {
+        cachedPosition = -1;
+        if (filter.isEmpty() && sortColumn < 0) {
+            view = null;
+            viewSize = 0;
+            return;
+        }
+        int n = records.size();
+        if (sortColumn < 0) {
+            int[] positions = new int[n];
+            int count = 0;
+            for (int p = 0; p < n; p++) {
+                if (matches(records.get(p))) {
+                    positions[count++] = p;
+                }
+            }
+            view = positions;
+            viewSize = count;
+            return;
+        }
+
+        // Sort key in the high half and position in the low half, so one
+        // primitive sort orders by value and keeps ties newest first
+        boolean byName = sortColumn == STUDENT_COLUMN || sortColumn == SUBJECT_COLUMN;
+        Map<String, Integer> labelIds = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+        long[] keyed = new long[n];
+        int count = 0;
+        for (int p = 0; p < n; p++) {
+            AttendanceRecord r = records.get(p);
+            if (!matches(r)) {
+                continue;
+            }
+            int key;
+            if (byName) {
+                String label = sortColumn == STUDENT_COLUMN ? studentName(r.studentId()) : subjectName(r.subjectCode());
+                key = labelIds.computeIfAbsent(label, l -> {
+                    labels.add(l);
+                    return labels.size() - 1;
+                });
+            } else {
+                key = sortKey(r);
+            }
+            keyed[count++] = ((long) key << 32) | p;
+        }
+        int[] rank = null;
+        if (byName) {
+            // Few distinct names, so rank them once instead of comparing strings per record
+            Integer[] order = new Integer[labels.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(labels::get));
+            rank = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                rank[order[i]] = i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int key = (int) (keyed[i] >>> 32);
+            if (rank != null) {
+                key = rank[key];
+            }
+            if (!ascending) {
+                key = Integer.MAX_VALUE - key;
+            }
+            keyed[i] = ((long) key << 32) | (keyed[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keyed, 0, count);
+        view = new int[count];
+        for (int i = 0; i < count; i++) {
+            view[i] = (int) keyed[i];
+        }
+        viewSize = count;
+    }
+
+    // Non-negative, ordered like the column's values
+    private int sortKey(AttendanceRecord r) {
+        return switch (sortColumn) {
+            case DATE_COLUMN -> (int) r.date().toEpochDay() + (1 << 20);
+            case SLOT_COLUMN -> r.slotNumber();
+            default -> r.present() ? 1 : 0;
+        };
+    }
+
+    /**
+     * Display order of two records, consistent with {@link #rebuildView()}.
+     */
+    private int compare(int p1, AttendanceRecord r1, int p2, AttendanceRecord r2) {
+        int c = switch (sortColumn) {
+            case STUDENT_COLUMN -> studentName(r1.studentId()).compareTo(studentName(r2.studentId()));
+            case SUBJECT_COLUMN -> subjectName(r1.subjectCode()).compareTo(subjectName(r2.subjectCode()));
+            case DATE_COLUMN -> r1.date().compareTo(r2.date());
+            case SLOT_COLUMN -> Integer.compare(r1.slotNumber(), r2.slotNumber());
+            default -> Boolean.compare(r1.present(), r2.present());
+        };
+        if (!ascending) {
+            c = -c;
+        }
+        return c != 0 ? c : Integer.compare(p1, p2);
+    }
+
+    private boolean matches(AttendanceRecord r) {
+        if (filter.isEmpty() || filteredStudents.contains(r.studentId())) {
+            return true;
+        }
+        return !studentNames.containsKey(r.studentId()) && UNKNOWN_STUDENT.toLowerCase().contains(filter);
+    }
+
+    // --- Name lookups ---
+
+    /**
+     * Rebuilds the name maps if the snapshot's lists changed.
+     *
+     * @return whether any name map was rebuilt
+     */
+    private boolean refreshNames() {
+        boolean changed = false;
+        if (snapshot.students() != namedStudents) {
+            namedStudents = snapshot.students();
+            studentNames.clear();
+            for (Student s : namedStudents) {
+                studentNames.put(s.id(), s.name());
+            }
+            filteredStudents = matchingStudents();
+            changed = true;
+        }
+        if (snapshot.subjects() != namedSubjects) {
+            namedSubjects = snapshot.subjects();
+            subjectNames.clear();
+            for (Subject s : namedSubjects) {
+                subjectNames.put(s.code(), s.name());
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    private Set<String> matchingStudents() {
+        Set<String> ids = new HashSet<>();
+        studentNames.forEach((id, name) -> {
+            if (name.toLowerCase().contains(filter)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private String studentName(String studentId) {
+        return studentNames.getOrDefault(studentId, UNKNOWN_STUDENT);
+    }
+
+    private String subjectName(String subjectCode) {
+        return subjectNames.getOrDefault(subjectCode, subjectCode);
+    }
+
+    private record RecordKey(String studentId, LocalDate date, int slotNumber) {
+    }
+}
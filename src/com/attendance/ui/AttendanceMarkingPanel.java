@@ -5,28 +5,40 @@ import com.attendance.model.Student;
 import com.attendance.model.Subject;
 import com.attendance.model.TimeSlot;
 import com.attendance.model.TimetableEntry;
+import com.attendance.service.AttendanceEvent;
 import com.attendance.service.AttendanceService;
+import com.attendance.service.BatchMarkResult;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.TextStyle;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * Panel for marking subject-based attendance.
- * Refactored to use Dropdown status and Day Label.
+ * Refactored to use Dropdown status and Day Label. Marks are saved in the
+ * background, with their progress in the status line. The history table
+ * reads rows lazily through {@link AttendanceHistoryTableModel}, sorts on
+ * a header click, and follows the service's change events, so one mark
+ * updates or inserts one row.
  */
 public class AttendanceMarkingPanel extends JPanel {
     private final AttendanceService service;
-    private final DefaultTableModel tableModel;
+    private final AttendanceHistoryTableModel historyModel;
     private final JComboBox<StudentItem> studentCombo;
     private final JComboBox<SubjectItem> subjectCombo;
     private final JComboBox<SlotItem> slotCombo;
@@ -35,6 +47,7 @@ public class AttendanceMarkingPanel extends JPanel {
     private final JComboBox<String> statusCombo;
     private final JTextField studentSearch;
     private final JTextField subjectSearch;
+    private final SaveStatusLabel saveStatus = new SaveStatusLabel();
 
     public AttendanceMarkingPanel(AttendanceService service) {
         this.service = service;
@@ -100,6 +113,7 @@ public class AttendanceMarkingPanel extends JPanel {
 
         JButton markBtn = new JButton("Mark Record");
         markBtn.setBackground(new Color(135, 206, 235)); // Sky Blue
+        JButton rosterBtn = new JButton("Mark Whole Class...");
         JButton todayBtn = new JButton("Load Today's Schedule");
 
         // Row 1: Filter Controls
@@ -128,6 +142,7 @@ public class AttendanceMarkingPanel extends JPanel {
         // Row 3: Action Buttons
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         buttonPanel.add(markBtn);
+        buttonPanel.add(rosterBtn);
 
         inputPanel.add(filterPanel);
         inputPanel.add(markPanel);
@@ -135,21 +150,35 @@ public class AttendanceMarkingPanel extends JPanel {
         add(inputPanel, BorderLayout.NORTH);
 
         // Attendance table
-        String[] columns = { "Student", "Subject", "Date", "Slot", "Status" };
-        tableModel = new DefaultTableModel(columns, 0);
-        JTable table = new JTable(tableModel);
+        historyModel = new AttendanceHistoryTableModel(service);
+        JTable table = new JTable(historyModel);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    historyModel.sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
         add(new JScrollPane(table), BorderLayout.CENTER);
 
         // Bottom panel
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton refreshBtn = new JButton("Refresh");
         bottomPanel.add(refreshBtn);
+        bottomPanel.add(saveStatus);
         add(bottomPanel, BorderLayout.SOUTH);
 
         markBtn.addActionListener(e -> markAttendance());
-        refreshBtn.addActionListener(e -> refreshData());
+        rosterBtn.addActionListener(e -> openRoster());
+        refreshBtn.addActionListener(e -> {
+            historyModel.reload();
+            refreshData();
+        });
         todayBtn.addActionListener(e -> loadTodaySchedule());
 
+        service.addAttendanceListener(new EdtAttendanceListener(this::apply));
         refreshData();
     }
 
@@ -187,13 +216,96 @@ public class AttendanceMarkingPanel extends JPanel {
         }
 
         try {
-            service.markAttendance(student.id, subject.code, date, slot.slotNumber, isPresent);
-            refreshData();
+            saveStatus.track(service.markAttendanceAsync(student.id, subject.code, date, slot.slotNumber, isPresent));
         } catch (AttendanceException ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    /**
+     * Roster mode: marks every student for the selected subject, slot and
+     * date in a single batch.
+     */
+    private void openRoster() {
+        SubjectItem subject = (SubjectItem) subjectCombo.getSelectedItem();
+        SlotItem slot = (SlotItem) slotCombo.getSelectedItem();
+        if (subject == null || slot == null) {
+            JOptionPane.showMessageDialog(this, "Select subject and slot");
+            return;
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateField.getText().trim());
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD");
+            return;
+        }
+
+        String[] columns = { "ID", "Name", "Roll No", "Present" };
+        DefaultTableModel rosterModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == 3 ? Boolean.class : String.class;
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column == 3;
+            }
+        };
+        for (Student s : service.getAllStudents()) {
+            rosterModel.addRow(new Object[] { s.id(), s.name(), s.rollNo(), Boolean.TRUE });
+        }
+
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this),
+                "Roster: " + subject + " / " + slot + " / " + date, Dialog.ModalityType.APPLICATION_MODAL);
+        dialog.setLayout(new BorderLayout(5, 5));
+        dialog.add(new JScrollPane(new JTable(rosterModel)), BorderLayout.CENTER);
+
+        JButton allPresentBtn = new JButton("All Present");
+        JButton allAbsentBtn = new JButton("All Absent");
+        JButton submitBtn = new JButton("Submit");
+        allPresentBtn.addActionListener(e -> setAllPresent(rosterModel, true));
+        allAbsentBtn.addActionListener(e -> setAllPresent(rosterModel, false));
+        submitBtn.addActionListener(e -> {
+            Map<String, Boolean> marks = new LinkedHashMap<>();
+            for (int row = 0; row < rosterModel.getRowCount(); row++) {
+                marks.put((String) rosterModel.getValueAt(row, 0), (Boolean) rosterModel.getValueAt(row, 3));
+            }
+            try {
+                CompletableFuture<BatchMarkResult> saved = service.markAttendanceBatchAsync(subject.code, date,
+                        slot.slotNumber, marks);
+                saveStatus.track(saved);
+                dialog.dispose();
+                // Report once the marks are committed; a failed save shows in the status line
+                saved.thenAccept(result -> SwingUtilities.invokeLater(() -> {
+                    StringBuilder msg = new StringBuilder("Marked " + result.marked() + " students.");
+                    result.failures().forEach((id, reason) -> msg.append("\n").append(id).append(": ").append(reason));
+                    JOptionPane.showMessageDialog(this, msg.toString());
+                }));
+            } catch (AttendanceException ex) {
+                JOptionPane.showMessageDialog(dialog, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        actions.add(allPresentBtn);
+        actions.add(allAbsentBtn);
+        actions.add(submitBtn);
+        dialog.add(actions, BorderLayout.SOUTH);
+
+        dialog.setSize(500, 400);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    private static void setAllPresent(DefaultTableModel model, boolean present) {
+        for (int row = 0; row < model.getRowCount(); row++) {
+            model.setValueAt(present, row, 3);
+        }
+    }
+
     private void loadTodaySchedule() {
         DayOfWeek today = LocalDate.now().getDayOfWeek();
         List<TimetableEntry> todayClasses = service.getTimetableForDay(today);
@@ -213,32 +325,48 @@ public class AttendanceMarkingPanel extends JPanel {
 
         filterStudents(query);
         refreshSubjectsAndSlots();
+        historyModel.setStudentFilter(query);
+    }
+
+    private void apply(List<AttendanceEvent> events) {
+        historyModel.apply(events);
+        for (AttendanceEvent event : events) {
+            if (event instanceof AttendanceEvent.StudentAdded added) {
+                Student s = added.student();
+                String q = studentSearch.getText().toLowerCase();
+                boolean listed = indexOfItem(studentCombo, item -> item.id.equals(s.id())) >= 0;
+                if (!listed && (s.name().toLowerCase().contains(q) || s.rollNo().toLowerCase().contains(q))) {
+                    studentCombo.addItem(new StudentItem(s.id(), s.name()));
+                }
+            } else if (event instanceof AttendanceEvent.StudentRemoved removed) {
+                String id = removed.student().id();
+                int item = indexOfItem(studentCombo, i -> i.id.equals(id));
+                if (item >= 0) {
+                    studentCombo.removeItemAt(item);
+                }
+            } else if (event instanceof AttendanceEvent.SubjectAdded added) {
+                Subject s = added.subject();
+                String q = subjectSearch.getText().toLowerCase();
+                boolean listed = indexOfItem(subjectCombo, item -> item.code.equals(s.code())) >= 0;
+                if (!listed && (s.name().toLowerCase().contains(q) || s.code().toLowerCase().contains(q))) {
+                    subjectCombo.addItem(new SubjectItem(s.code(), s.name()));
+                }
+            } else if (event instanceof AttendanceEvent.SubjectRemoved removed) {
+                int item = indexOfItem(subjectCombo, i -> i.code.equals(removed.subject().code()));
+                if (item >= 0) {
+                    subjectCombo.removeItemAt(item);
+                }
+            }
+        }
+    }
 
-        tableModel.setRowCount(0);
-        service.getAllAttendance().stream()
-                .sorted((r1, r2) -> r2.date().compareTo(r1.date())) // Sort by date desc
-                .forEach(r -> {
-                    String studentName = service.getAllStudents().stream()
-                            .filter(s -> s.id().equals(r.studentId()))
-                            .map(Student::name)
-                            .findFirst()
-                            .orElse("Unknown");
-
-                    if (!query.isEmpty() && !studentName.toLowerCase().contains(query)) {
-                        return;
-                    }
-
-                    String subjectName = service.findSubjectByCode(r.subjectCode())
-                            .map(Subject::name)
-                            .orElse(r.subjectCode());
-                    tableModel.addRow(new Object[] {
-                            studentName,
-                            subjectName,
-                            r.date().toString(),
-                            r.slotNumber(),
-                            r.present() ? "Present" : "Absent"
-                    });
-                });
+    private static <T> int indexOfItem(JComboBox<T> combo, Predicate<T> match) {
+        for (int i = 0; i < combo.getItemCount(); i++) {
+            if (match.test(combo.getItemAt(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private void filterStudents(String query) {
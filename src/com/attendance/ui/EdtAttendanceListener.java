@@ -0,0 +1,45 @@
+package com.attendance.ui;
+
+import com.attendance.service.AttendanceEvent;
+import com.attendance.service.AttendanceListener;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hands service changes to a panel on the EDT. Everything that arrives
+ * before the EDT gets to it is delivered as one batch, so a burst of writes
+ * costs one task and one round of row updates.
+ * Demonstrates: SwingUtilities.invokeLater, producer/consumer hand-off.
+ */
+public class EdtAttendanceListener implements AttendanceListener {
+    private final Consumer<List<AttendanceEvent>> handler;
+    private List<AttendanceEvent> pending = new ArrayList<>(); // guarded by this
+
+    public EdtAttendanceListener(Consumer<List<AttendanceEvent>> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void changed(List<AttendanceEvent> events) {
+        boolean schedule;
+        synchronized (this) {
+            schedule = pending.isEmpty();
+            pending.addAll(events);
+        }
+        if (schedule) {
+            SwingUtilities.invokeLater(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        List<AttendanceEvent> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        handler.accept(batch);
+    }
+}
@@ -1,11 +1,14 @@
 package com.attendance.ui;
 
 import com.attendance.exception.AttendanceException;
+import com.attendance.service.AsyncDataManagerAdapter;
+import com.attendance.service.AttendanceFormat;
 import com.attendance.service.AttendanceService;
-import com.attendance.service.SerializedDataManager;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * Main application window with tabbed panels.
@@ -13,6 +16,7 @@ import java.awt.*;
  */
 public class MainFrame extends JFrame {
     private AttendanceService service;
+    private AsyncDataManagerAdapter dataManager;
 
     public MainFrame() {
         setTitle("Attendance Management System");
@@ -21,7 +25,10 @@ public class MainFrame extends JFrame {
         setLocationRelativeTo(null);
 
         try {
-            service = new AttendanceService(new SerializedDataManager());
+            // Panels save through the background thread and show when changes are committed
+            AttendanceFormat format = AttendanceFormat.fromSystemProperty();
+            dataManager = new AsyncDataManagerAdapter(format.open());
+            service = new AttendanceService(dataManager, format.historyFrom());
         } catch (AttendanceException e) {
             JOptionPane.showMessageDialog(this,
                     "Failed to initialize: " + e.getMessage(),
@@ -37,5 +44,21 @@ public class MainFrame extends JFrame {
         tabbedPane.addTab("Reports", new ReportPanel(service));
 
         add(tabbedPane, BorderLayout.CENTER);
+
+        // Finish queued saves before EXIT_ON_CLOSE terminates the JVM
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                service.close();
+                try {
+                    dataManager.close();
+                } catch (AttendanceException ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Failed to save: " + ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
     }
 }
@@ -1,13 +1,25 @@
 package com.attendance.ui;
 
+import com.attendance.exception.AttendanceException;
 import com.attendance.model.Student;
 import com.attendance.model.Subject;
+import com.attendance.service.AttendanceExporter;
+import com.attendance.service.AttendanceReport;
 import com.attendance.service.AttendanceService;
+import com.attendance.service.StudentRank;
+import com.attendance.service.SubjectAttendanceMatrix;
 
 import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.Map;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Panel for viewing attendance reports with subject-wise breakdown.
@@ -16,7 +28,10 @@ import java.util.Map;
 public class ReportPanel extends JPanel {
     private final AttendanceService service;
     private final DefaultTableModel overallTableModel;
-    private final DefaultTableModel subjectTableModel;
+    private final SubjectWiseTableModel subjectTableModel;
+    private final TrendsTableModel trendsTableModel;
+    private final JComboBox<String> trendsByBox;
+    private final JTextField asOfField;
     private final JSpinner thresholdSpinner;
 
     public ReportPanel(AttendanceService service) {
@@ -29,11 +44,20 @@ public class ReportPanel extends JPanel {
         JButton refreshBtn = new JButton("Refresh");
         thresholdSpinner = new JSpinner(new SpinnerNumberModel(75.0, 0.0, 100.0, 5.0));
         JButton lowAttendanceBtn = new JButton("Show Low Attendance");
+        JButton exportBtn = new JButton("Export...");
 
         controlPanel.add(refreshBtn);
         controlPanel.add(new JLabel("Threshold %:"));
         controlPanel.add(thresholdSpinner);
         controlPanel.add(lowAttendanceBtn);
+        controlPanel.add(exportBtn);
+        // Storage that loads only recent months offers the rest on demand
+        service.getHistoryLoadedFrom().ifPresent(from -> {
+            JButton olderHistoryBtn = new JButton("Load Older History");
+            olderHistoryBtn.setToolTipText("Reports cover attendance since " + from);
+            olderHistoryBtn.addActionListener(e -> loadOlderHistory(olderHistoryBtn));
+            controlPanel.add(olderHistoryBtn);
+        });
         add(controlPanel, BorderLayout.NORTH);
   
         // Tabbed pane for overall and subject-wise
@@ -46,65 +70,308 @@ public class ReportPanel extends JPanel {
         reportTabs.addTab("Overall", new JScrollPane(overallTable));
 
         // Subject-wise attendance table
-        String[] subjectColumns = {"Student", "Subject", "Attendance %"};
-        subjectTableModel = new DefaultTableModel(subjectColumns, 0);
+        subjectTableModel = new SubjectWiseTableModel();
         JTable subjectTable = new JTable(subjectTableModel);
         reportTabs.addTab("Subject-wise", new JScrollPane(subjectTable));
 
+        // Rolling-window trends, per student or per subject
+        trendsTableModel = new TrendsTableModel(service);
+        JPanel trendsPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel trendsControls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        trendsByBox = new JComboBox<>(new String[]{"Students", "Subjects"});
+        asOfField = new JTextField(LocalDate.now().toString(), 10);
+        JButton showTrendsBtn = new JButton("Show");
+        trendsControls.add(new JLabel("By:"));
+        trendsControls.add(trendsByBox);
+        trendsControls.add(new JLabel("As of (yyyy-MM-dd):"));
+        trendsControls.add(asOfField);
+        trendsControls.add(showTrendsBtn);
+        trendsPanel.add(trendsControls, BorderLayout.NORTH);
+        trendsPanel.add(new JScrollPane(new JTable(trendsTableModel)), BorderLayout.CENTER);
+        reportTabs.addTab("Trends", trendsPanel);
+        trendsByBox.addActionListener(e -> refreshTrends());
+        showTrendsBtn.addActionListener(e -> refreshTrends());
+
         add(reportTabs, BorderLayout.CENTER);
  
         refreshBtn.addActionListener(e -> refreshReport());
         lowAttendanceBtn.addActionListener(e -> showLowAttendance());
+        // Range read on the service's ranking index, cheap enough per spinner step
+        thresholdSpinner.addChangeListener(e -> showLowAttendance());
+
+        JPopupMenu exportMenu = new JPopupMenu();
+        JMenuItem exportAttendanceItem = new JMenuItem("Attendance Records...");
+        JMenuItem exportReportItem = new JMenuItem("Attendance Report...");
+        exportAttendanceItem.addActionListener(e -> export(false));
+        exportReportItem.addActionListener(e -> export(true));
+        exportMenu.add(exportAttendanceItem);
+        exportMenu.add(exportReportItem);
+        exportBtn.addActionListener(e -> exportMenu.show(exportBtn, 0, exportBtn.getHeight()));
 
         refreshReport();
     }
 
     private void refreshReport() {
-        // Overall report
-        overallTableModel.setRowCount(0);
-        Map<String, Double> percentages = service.getAllAttendancePercentages();
+        // Served from the service's cached snapshot unless data changed since
+        AttendanceReport report = service.getReport();
+        showOverall(report);
 
-        for (Student s : service.getAllStudents()) {
-            double pct = percentages.getOrDefault(s.id(), 0.0);
-            overallTableModel.addRow(new Object[]{
-                    s.id(), 
-                    s.name(),
-                    s.rollNo(),
-                    String.format("%.1f%%", pct)
-            });
-        }
+        // Subject-wise report, rendered straight from the aggregated matrix
+        subjectTableModel.setMatrix(report.matrix());
+        refreshTrends();
+    }
 
-        // Subject-wise report
-        subjectTableModel.setRowCount(0);
-        Map<String, Map<String, Double>> subjectWise = service.getSubjectWiseAttendance();
-
-        for (Student s : service.getAllStudents()) {
-            Map<String, Double> studentSubjects = subjectWise.get(s.id());
-            if (studentSubjects != null) {
-                for (Subject sub : service.getAllSubjects()) {
-                    double pct = studentSubjects.getOrDefault(sub.code(), 0.0);
-                    subjectTableModel.addRow(new Object[]{
-                            s.name(),
-                            sub.name(),
-                            String.format("%.1f%%", pct)
-                    });
-                }
+    private void loadOlderHistory(JButton button) {
+        button.setEnabled(false);
+        CompletableFuture.runAsync(() -> {
+            try {
+                service.loadHistory(null);
+            } catch (AttendanceException ex) {
+                throw new CompletionException(ex);
+            }
+        }).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                button.setEnabled(true);
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                JOptionPane.showMessageDialog(this, "Failed to load history: " + cause.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                button.setVisible(false);
+                refreshReport();
             }
+        }));
+    }
+
+    private void refreshTrends() {
+        try {
+            trendsTableModel.show(trendsByBox.getSelectedIndex() == 1, LocalDate.parse(asOfField.getText().trim()));
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date: " + ex.getParsedString(), "Error",
+                    JOptionPane.ERROR_MESSAGE);
         }
     }
 
     private void showLowAttendance() {
         double threshold = (Double) thresholdSpinner.getValue();
         overallTableModel.setRowCount(0);
+        for (StudentRank rank : service.getRanksBelowAttendance(threshold)) {
+            Student s = rank.student();
+            overallTableModel.addRow(new Object[]{
+                    s.id(),
+                    s.name(),
+                    s.rollNo(),
+                    String.format("%.1f%%", rank.percentage())
+            });
+        }
+    }
 
-        for (Student s : service.getStudentsBelowAttendance(threshold)) {
-            double pct = service.getAttendancePercentage(s.id());
+    private void showOverall(AttendanceReport report) {
+        overallTableModel.setRowCount(0);
+        for (int row = 0; row < report.studentCount(); row++) {
+            Student s = report.student(row);
             overallTableModel.addRow(new Object[]{
                     s.id(),
                     s.name(),
                     s.rollNo(),
-                    String.format("%.1f%%", pct)
+                    String.format("%.1f%%", report.overallPercentage(row))
             });
         }
     }
+
+    /**
+     * Asks for filters and a .csv/.json file, then streams the export on a
+     * background thread.
+     */
+    private void export(boolean report) {
+        JTextField fromField = new JTextField(10);
+        JTextField toField = new JTextField(10);
+        JComboBox<String> subjectBox = new JComboBox<>();
+        subjectBox.addItem("All subjects");
+        for (Subject s : service.getAllSubjects()) {
+            subjectBox.addItem(s.code());
+        }
+        JPanel filters = new JPanel(new GridLayout(3, 2, 5, 5));
+        filters.add(new JLabel("From (yyyy-MM-dd, optional):"));
+        filters.add(fromField);
+        filters.add(new JLabel("To (yyyy-MM-dd, optional):"));
+        filters.add(toField);
+        filters.add(new JLabel("Subject:"));
+        filters.add(subjectBox);
+        if (JOptionPane.showConfirmDialog(this, filters, "Export Filters",
+                JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        AttendanceExporter.Filter filter;
+        try {
+            filter = new AttendanceExporter.Filter(parseDate(fromField.getText()), parseDate(toField.getText()),
+                    subjectBox.getSelectedIndex() == 0 ? null : (String) subjectBox.getSelectedItem());
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date: " + ex.getParsedString(), "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(report ? "attendance-report.csv" : "attendance.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        AttendanceExporter.Format format = AttendanceExporter.Format.forFileName(file.toString());
+        AttendanceExporter exporter = new AttendanceExporter(service);
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return report
+                        ? exporter.exportReport(file, format, filter)
+                        : exporter.exportAttendance(file, format, filter);
+            } catch (AttendanceException ex) {
+                throw new CompletionException(ex);
+            }
+        }).whenComplete((rows, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                JOptionPane.showMessageDialog(this, "Export failed: " + cause.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Exported " + rows + " rows to " + file);
+            }
+        }));
+    }
+
+    private static LocalDate parseDate(String text) {
+        return text.isBlank() ? null : LocalDate.parse(text.trim());
+    }
+
+    /**
+     * One row per (student, subject) cell of the matrix; values are formatted
+     * only for the rows the table actually paints.
+     */
+    private static class SubjectWiseTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Student", "Subject", "Attendance %"};
+        private SubjectAttendanceMatrix matrix;
+
+        void setMatrix(SubjectAttendanceMatrix matrix) {
+            this.matrix = matrix;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return matrix == null ? 0 : matrix.studentCount() * matrix.subjectCount();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            int row = rowIndex / matrix.subjectCount();
+            int col = rowIndex % matrix.subjectCount();
+            return switch (columnIndex) {
+                case 0 -> matrix.student(row).name();
+                case 1 -> matrix.subject(col).name();
+                default -> String.format("%.1f%%", matrix.percentage(row, col));
+            };
+        }
+    }
+
+    /**
+     * 7-day and 30-day rolling percentages plus the week-over-week change,
+     * one row per student or per subject. Each cell is a cheap window query,
+     * so only the painted rows cost anything; the one-off build of the trend
+     * sums runs on a worker thread before the rows are shown.
+     */
+    private static class TrendsTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"ID", "Name", "7-day %", "30-day %", "Week-over-week"};
+        private final AttendanceService service;
+        private boolean bySubject;
+        private LocalDate asOf = LocalDate.now();
+        private List<Student> students = List.of();
+        private List<Subject> subjects = List.of();
+        private int generation; // only the latest show() applies its rows
+
+        TrendsTableModel(AttendanceService service) {
+            this.service = service;
+        }
+
+        void show(boolean bySubject, LocalDate asOf) {
+            int requested = ++generation;
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    service.prepareTrends();
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    if (requested == generation) {
+                        TrendsTableModel.this.bySubject = bySubject;
+                        TrendsTableModel.this.asOf = asOf;
+                        students = List.copyOf(service.getAllStudents());
+                        subjects = List.copyOf(service.getAllSubjects());
+                        fireTableDataChanged();
+                    }
+                }
+            }.execute();
+        }
+
+        @Override
+        public int getRowCount() {
+            return bySubject ? subjects.size() : students.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            if (bySubject) {
+                Subject s = subjects.get(rowIndex);
+                return switch (columnIndex) {
+                    case 0 -> s.code();
+                    case 1 -> s.name();
+                    case 2 -> formatPct(service.getSubjectTrend(s.code(), asOf, 7).percentage());
+                    case 3 -> formatPct(service.getSubjectTrend(s.code(), asOf, 30).percentage());
+                    default -> formatDelta(service.getSubjectWeekOverWeekDelta(s.code(), asOf));
+                };
+            }
+            Student s = students.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> s.id();
+                case 1 -> s.name();
+                case 2 -> formatPct(service.getStudentTrend(s.id(), asOf, 7).percentage());
+                case 3 -> formatPct(service.getStudentTrend(s.id(), asOf, 30).percentage());
+                default -> formatDelta(service.getStudentWeekOverWeekDelta(s.id(), asOf));
+            };
+        }
+
+        private static String formatPct(double pct) {
+            return String.format("%.1f%%", pct);
+        }
+
+        private static String formatDelta(double delta) {
+            return String.format("%+.1f", delta);
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package com.attendance.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Status line for changes that are already applied in memory but may still
+ * be saving: shows how many are pending, then whether all were committed.
+ * Demonstrates: CompletableFuture callbacks, SwingUtilities.invokeLater.
+ */
+public class SaveStatusLabel extends JLabel {
+    private static final Color PENDING_COLOR = new Color(160, 110, 0);
+    private static final Color SAVED_COLOR = new Color(0, 128, 0);
+
+    private int pending;
+    private String failure; // first failed save since everything was last committed
+
+    public SaveStatusLabel() {
+        super(" ");
+    }
+
+    /**
+     * Shows the change as pending until its save completes. Call on the EDT.
+     */
+    public void track(CompletableFuture<?> saved) {
+        if (pending == 0) {
+            failure = null;
+        }
+        pending++;
+        update();
+        saved.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            pending--;
+            if (error != null && failure == null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                failure = cause.getMessage();
+            }
+            update();
+        }));
+    }
+
+    private void update() {
+        if (pending > 0) {
+            setForeground(PENDING_COLOR);
+            setText("Saving " + pending + (pending == 1 ? " change..." : " changes..."));
+        } else if (failure != null) {
+            setForeground(Color.RED);
+            setText("Save failed: " + failure);
+        } else {
+            setForeground(SAVED_COLOR);
+            setText("All changes saved");
+        }
+    }
+}
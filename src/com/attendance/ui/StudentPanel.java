@@ -2,22 +2,33 @@ package com.attendance.ui;
 
 import com.attendance.exception.AttendanceException;
 import com.attendance.model.Student;
+import com.attendance.service.AttendanceEvent;
 import com.attendance.service.AttendanceService;
+import com.attendance.service.BulkImporter;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
- * Panel for managing students.
+ * Panel for managing students. Changes are saved in the background, with
+ * their progress in the status line; rows follow the service's change
+ * events one at a time, whoever made the change.
  * Demonstrates: JTable, DefaultTableModel, CompletableFuture (concurrency).
  */
 public class StudentPanel extends JPanel {
     private final AttendanceService service;
     private final DefaultTableModel tableModel;
     private final JTable table;
+    private final SaveStatusLabel saveStatus = new SaveStatusLabel();
 
     public StudentPanel(AttendanceService service) {
         this.service = service;
@@ -41,6 +52,7 @@ public class StudentPanel extends JPanel {
         JTextField rollField = new JTextField(10);
         JButton addBtn = new JButton("Add Student");
         JButton removeBtn = new JButton("Remove Selected");
+        JButton importBtn = new JButton("Import CSV...");
 
         inputPanel.add(new JLabel("Name:"));
         inputPanel.add(nameField);
@@ -48,7 +60,9 @@ public class StudentPanel extends JPanel {
         inputPanel.add(rollField);
         inputPanel.add(addBtn);
         inputPanel.add(removeBtn);
+        inputPanel.add(importBtn);
         add(inputPanel, BorderLayout.NORTH);
+        add(saveStatus, BorderLayout.SOUTH);
 
         // Add student with async save (demonstrates concurrency)
         addBtn.addActionListener(e -> {
@@ -62,22 +76,15 @@ public class StudentPanel extends JPanel {
             String id = UUID.randomUUID().toString().substring(0, 8);
             Student student = new Student(id, name, rollNo);
 
-            // Async operation using CompletableFuture
-            // Async operation using CompletableFuture
-            CompletableFuture.runAsync(() -> {
-                try {
-                    service.addStudent(student);
-                } catch (AttendanceException ex) {
-                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, ex.getMessage(), "Error",
-                            JOptionPane.ERROR_MESSAGE));
-                    return;
-                }
-                SwingUtilities.invokeLater(() -> {
-                    tableModel.addRow(new Object[] { student.id(), student.name(), student.rollNo() });
-                    nameField.setText("");
-                    rollField.setText("");
-                });
-            });
+            // Applied in memory now; the save completes in the background
+            try {
+                saveStatus.track(service.addStudentAsync(student));
+            } catch (AttendanceException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            nameField.setText("");
+            rollField.setText("");
         });
 
         // Remove student
@@ -89,16 +96,73 @@ public class StudentPanel extends JPanel {
             }
             String id = (String) tableModel.getValueAt(row, 0);
             try {
-                service.removeStudent(id);
-                tableModel.removeRow(row);
+                saveStatus.track(service.removeStudentAsync(id));
             } catch (AttendanceException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
 
+        importBtn.addActionListener(e -> importStudents());
+
+        service.addAttendanceListener(new EdtAttendanceListener(this::apply));
         loadStudents();
     }
 
+    private void apply(List<AttendanceEvent> events) {
+        for (AttendanceEvent event : events) {
+            if (event instanceof AttendanceEvent.StudentAdded added) {
+                Student s = added.student();
+                // Skip students that were already loaded when the event was queued
+                if (rowOf(s.id()) < 0) {
+                    tableModel.addRow(new Object[] { s.id(), s.name(), s.rollNo() });
+                }
+            } else if (event instanceof AttendanceEvent.StudentRemoved removed) {
+                int row = rowOf(removed.student().id());
+                if (row >= 0) {
+                    tableModel.removeRow(row);
+                }
+            }
+        }
+    }
+
+    private int rowOf(String studentId) {
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            if (studentId.equals(tableModel.getValueAt(row, 0))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bulk-imports a student_id,name,roll_no CSV in the background and
+     * reports the rows that were rejected.
+     */
+    private void importStudents() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        CompletableFuture.runAsync(() -> {
+            BulkImporter.ImportResult result;
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                result = new BulkImporter(service).importStudents(in);
+            } catch (AttendanceException | IOException ex) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, ex.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE));
+                return;
+            }
+            StringBuilder message = new StringBuilder("Imported " + result.imported() + " students.");
+            if (result.hasRejections()) {
+                message.append("\nRejected ").append(result.rejected().size()).append(" rows:");
+                result.rejected().stream().limit(10).forEach(r ->
+                        message.append("\nLine ").append(r.line()).append(": ").append(r.reason()));
+            }
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, message.toString()));
+        });
+    }
+
     private void loadStudents() {
         tableModel.setRowCount(0);
         for (Student s : service.getAllStudents()) {
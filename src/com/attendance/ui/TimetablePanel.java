@@ -4,21 +4,27 @@ import com.attendance.exception.AttendanceException;
 import com.attendance.model.Subject;
 import com.attendance.model.TimeSlot;
 import com.attendance.model.TimetableEntry;
+import com.attendance.service.AttendanceEvent;
 import com.attendance.service.AttendanceService;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.DayOfWeek;
+import java.util.List;
 
 /**
- * Panel for managing subjects and timetable.
+ * Panel for managing subjects and timetable. Changes are saved in the
+ * background, with their progress in the status line; rows and the subject
+ * choice follow the service's change events.
  * Demonstrates: Enums (DayOfWeek), JComboBox with enums.
  */
 public class TimetablePanel extends JPanel {
     private final AttendanceService service;
     private final DefaultTableModel subjectTableModel;
     private final DefaultTableModel timetableTableModel;
+    private final JComboBox<SubjectItem> subjectCombo = new JComboBox<>();
+    private final SaveStatusLabel saveStatus = new SaveStatusLabel();
 
     public TimetablePanel(AttendanceService service) {
         this.service = service;
@@ -60,8 +66,7 @@ public class TimetablePanel extends JPanel {
                 return;
             }
             try {
-                service.addSubject(new Subject(code, name));
-                refreshSubjects();
+                saveStatus.track(service.addSubjectAsync(new Subject(code, name)));
                 codeField.setText("");
                 nameField.setText("");
             } catch (AttendanceException ex) {
@@ -76,13 +81,7 @@ public class TimetablePanel extends JPanel {
                 return;
             }
             String code = (String) subjectTableModel.getValueAt(row, 0);
-            try {
-                service.removeSubject(code);
-                refreshSubjects();
-                refreshTimetable();
-            } catch (AttendanceException ex) {
-                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            saveStatus.track(service.removeSubjectAsync(code));
         });
 
         splitPane.setLeftComponent(subjectsPanel);
@@ -102,7 +101,6 @@ public class TimetablePanel extends JPanel {
                 DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY
         });
         JComboBox<SlotItem> slotCombo = new JComboBox<>();
-        JComboBox<SubjectItem> subjectCombo = new JComboBox<>();
         JButton addTTBtn = new JButton("Add");
         JButton removeTTBtn = new JButton("Remove");
 
@@ -125,8 +123,7 @@ public class TimetablePanel extends JPanel {
                 return;
             }
             try {
-                service.addTimetableEntry(new TimetableEntry(day, slot.slotNumber, subj.code));
-                refreshTimetable();
+                saveStatus.track(service.addTimetableEntryAsync(new TimetableEntry(day, slot.slotNumber, subj.code)));
             } catch (AttendanceException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -140,31 +137,78 @@ public class TimetablePanel extends JPanel {
             }
             String dayStr = (String) timetableTableModel.getValueAt(row, 0);
             int slotNum = (Integer) timetableTableModel.getValueAt(row, 1);
-            try {
-                service.removeTimetableEntry(DayOfWeek.valueOf(dayStr), slotNum);
-                refreshTimetable();
-            } catch (AttendanceException ex) {
-                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            saveStatus.track(service.removeTimetableEntryAsync(DayOfWeek.valueOf(dayStr), slotNum));
         });
 
         splitPane.setRightComponent(timetablePanel);
         add(splitPane, BorderLayout.CENTER);
+        add(saveStatus, BorderLayout.SOUTH);
 
         // Populate combos
         for (TimeSlot ts : service.getAllTimeSlots()) {
             slotCombo.addItem(new SlotItem(ts.slotNumber(), ts.toString()));
         }
 
+        service.addAttendanceListener(new EdtAttendanceListener(this::apply));
         refreshSubjects();
         refreshTimetable();
-
-        // Update subject combo when subjects change
-        addSubjectBtn.addActionListener(e -> refreshSubjectCombo(subjectCombo));
-        removeSubjectBtn.addActionListener(e -> refreshSubjectCombo(subjectCombo));
         refreshSubjectCombo(subjectCombo);
     }
 
+    private void apply(List<AttendanceEvent> events) {
+        for (AttendanceEvent event : events) {
+            // Adds skip rows that were already loaded when the event was queued
+            if (event instanceof AttendanceEvent.SubjectAdded added) {
+                Subject s = added.subject();
+                if (subjectRowOf(s.code()) < 0) {
+                    subjectTableModel.addRow(new Object[] { s.code(), s.name() });
+                    subjectCombo.addItem(new SubjectItem(s.code(), s.name()));
+                }
+            } else if (event instanceof AttendanceEvent.SubjectRemoved removed) {
+                String code = removed.subject().code();
+                int row = subjectRowOf(code);
+                if (row >= 0) {
+                    subjectTableModel.removeRow(row);
+                }
+                for (int i = 0; i < subjectCombo.getItemCount(); i++) {
+                    if (subjectCombo.getItemAt(i).code().equals(code)) {
+                        subjectCombo.removeItemAt(i);
+                        break;
+                    }
+                }
+            } else if (event instanceof AttendanceEvent.TimetableEntryAdded added) {
+                TimetableEntry t = added.entry();
+                if (timetableRowOf(t.day(), t.slotNumber()) < 0) {
+                    timetableTableModel.addRow(toRow(t));
+                }
+            } else if (event instanceof AttendanceEvent.TimetableEntryRemoved removed) {
+                int row = timetableRowOf(removed.entry().day(), removed.entry().slotNumber());
+                if (row >= 0) {
+                    timetableTableModel.removeRow(row);
+                }
+            }
+        }
+    }
+
+    private int subjectRowOf(String code) {
+        for (int row = 0; row < subjectTableModel.getRowCount(); row++) {
+            if (code.equals(subjectTableModel.getValueAt(row, 0))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private int timetableRowOf(DayOfWeek day, int slotNumber) {
+        for (int row = 0; row < timetableTableModel.getRowCount(); row++) {
+            if (day.name().equals(timetableTableModel.getValueAt(row, 0))
+                    && slotNumber == (Integer) timetableTableModel.getValueAt(row, 1)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
     private void refreshSubjects() {
         subjectTableModel.setRowCount(0);
         for (Subject s : service.getAllSubjects()) {
@@ -175,13 +219,17 @@ public class TimetablePanel extends JPanel {
     private void refreshTimetable() {
         timetableTableModel.setRowCount(0);
         for (TimetableEntry t : service.getTimetable()) {
-            String subjectName = service.findSubjectByCode(t.subjectCode())
-                    .map(Subject::name)
-                    .orElse(t.subjectCode());
-            timetableTableModel.addRow(new Object[] { t.day().name(), t.slotNumber(), subjectName });
+            timetableTableModel.addRow(toRow(t));
         }
     }
 
+    private Object[] toRow(TimetableEntry t) {
+        String subjectName = service.findSubjectByCode(t.subjectCode())
+                .map(Subject::name)
+                .orElse(t.subjectCode());
+        return new Object[] { t.day().name(), t.slotNumber(), subjectName };
+    }
+
     private void refreshSubjectCombo(JComboBox<SubjectItem> combo) {
         combo.removeAllItems();
         for (Subject s : service.getAllSubjects()) {